@@ -12,12 +12,29 @@ clear
 
 echo
 
+# Задание 1 использует виртуальные потоки и модуль jdk.incubator.vector, поэтому
+# нужна Java 21 или новее. JDK можно указать через JAVA_HOME, иначе берется из PATH
+if [ -n "$JAVA_HOME" ]; then
+    JAVAC="$JAVA_HOME/bin/javac"
+    JAVA="$JAVA_HOME/bin/java"
+else
+    JAVAC="javac"
+    JAVA="java"
+fi
+
+JAVA_VERSION=$("$JAVAC" -version 2>&1 | sed -n 's/^javac \([0-9]*\).*/\1/p')
+if [ -z "$JAVA_VERSION" ] || [ "$JAVA_VERSION" -lt 21 ]; then
+    echo -e "${RED}Нужен JDK 21 или новее, найден: $("$JAVAC" -version 2>&1)${NC}"
+    echo "Укажите JDK 21 в JAVA_HOME или запустите задания через Gradle (gradle runTask1)"
+    exit 1
+fi
+
 mkdir -p out
 
 echo -e "${YELLOW}Компиляция исходного кода...${NC}"
 
 if [ -d "src/main/java/task1" ]; then
-    javac -d out src/main/java/task1/*.java 2>/dev/null
+    "$JAVAC" --add-modules jdk.incubator.vector -d out src/main/java/task1/*.java 2>/dev/null
     if [ $? -eq 0 ]; then
         echo -e "Задание 1 скомпилировано"
     else
@@ -26,7 +43,7 @@ if [ -d "src/main/java/task1" ]; then
 fi
 
 if [ -f "src/main/java/task2/Task2Main.java" ]; then
-    javac -d out src/main/java/task2/*.java 2>/dev/null
+    "$JAVAC" -d out src/main/java/common/*.java src/main/java/task2/*.java 2>/dev/null
     if [ $? -eq 0 ]; then
         echo -e "Задание 2 скомпилировано"
     else
@@ -35,7 +52,7 @@ if [ -f "src/main/java/task2/Task2Main.java" ]; then
 fi
 
 if [ -d "src/main/java/task3" ]; then
-    javac -d out src/main/java/task3/*.java 2>/dev/null
+    "$JAVAC" -d out src/main/java/common/*.java src/main/java/task3/*.java 2>/dev/null
     if [ $? -eq 0 ]; then
         echo -e "Задание 3 скомпилировано"
     else
@@ -62,7 +79,7 @@ while true; do
             echo
             echo -e "${CYAN}Запуск Задания 1...${NC}"
             echo "════════════════════════════════════════════"
-            java -cp out main.java.task1.Main
+            "$JAVA" --add-modules jdk.incubator.vector -cp out main.java.task1.Main
             echo
             echo -e "${BLUE}════════════════════════════════════════════${NC}"
             echo
@@ -71,7 +88,7 @@ while true; do
             echo
             echo -e "${CYAN}Запуск Задания 2...${NC}"
             echo "════════════════════════════════════════════"
-            java -cp out main.java.task2.Task2Main
+            "$JAVA" -cp out main.java.task2.Task2Main
             echo
             echo -e "${BLUE}════════════════════════════════════════════${NC}"
             echo
@@ -80,7 +97,7 @@ while true; do
             echo
             echo -e "${CYAN}Запуск Задания 3...${NC}"
             echo "════════════════════════════════════════════"
-            java -cp out main.java.task3.Task3Main
+            "$JAVA" -cp out main.java.task3.Task3Main
             echo
             echo -e "${BLUE}════════════════════════════════════════════${NC}"
             echo
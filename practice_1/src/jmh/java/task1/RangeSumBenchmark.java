@@ -0,0 +1,85 @@
+package jmh.java.task1;
+
+import main.java.task1.ConcurrentFenwickTree;
+import main.java.task1.ForkJoinSum;
+import main.java.task1.Workload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Обновление элемента и запрос суммы диапазона: дерево Фенвика против
+// полного пересчета через ForkJoinSum на каждый запрос
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class RangeSumBenchmark {
+    
+    @Param({"100000", "1000000", "10000000"})
+    public int size;
+    
+    private int[] array;
+    private ConcurrentFenwickTree tree;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        Workload.setMode(Workload.Mode.NONE);
+        Workload.setVerbose(false);
+        
+        Random random = new Random(42);
+        array = new int[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = random.nextInt(100) + 1;
+        }
+        tree = new ConcurrentFenwickTree(array);
+    }
+    
+    @Benchmark
+    public long fenwickUpdateAndQuery() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        tree.set(random.nextInt(size), random.nextInt(100) + 1);
+        return tree.rangeSum(0, size);
+    }
+    
+    @Benchmark
+    public long forkJoinUpdateAndRecompute() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        array[random.nextInt(size)] = random.nextInt(100) + 1;
+        return ForkJoinSum.calculate(array);
+    }
+    
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(2)
+    public void concurrentUpdate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        tree.add(random.nextInt(size), random.nextInt(3) - 1);
+    }
+    
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(2)
+    public long concurrentQuery() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(size);
+        int to = from + random.nextInt(size - from + 1);
+        return tree.rangeSum(from, to);
+    }
+}
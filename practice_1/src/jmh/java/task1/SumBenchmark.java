@@ -0,0 +1,137 @@
+package jmh.java.task1;
+
+import main.java.task1.ForkJoinSum;
+import main.java.task1.MultithreadedSum;
+import main.java.task1.SequentialSum;
+import main.java.task1.SumService;
+import main.java.task1.VectorSum;
+import main.java.task1.VirtualThreadSum;
+import main.java.task1.Workload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// Запуск: gradle jmh (профилировщик gc подключен в build.gradle)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class SumBenchmark {
+    
+    public enum Distribution {
+        UNIFORM,
+        // Последняя восьмая часть массива в ~15 раз дороже в режиме SPIN
+        SKEWED
+    }
+    
+    @State(Scope.Benchmark)
+    public static class Data {
+        @Param({"10000", "100000", "1000000", "10000000", "100000000", "1000000000"})
+        public int size;
+        
+        // SLEEP воспроизводит Thread.sleep(1) на элемент и имеет смысл только для малых размеров
+        @Param({"NONE"})
+        public Workload.Mode workload;
+        
+        @Param({"UNIFORM"})
+        public Distribution distribution;
+        
+        public int[] array;
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            Workload.setMode(workload);
+            Workload.setVerbose(false);
+            
+            Random random = new Random(42);
+            array = new int[size];
+            int skewedFrom = distribution == Distribution.SKEWED ? size - size / 8 : size;
+            for (int i = 0; i < size; i++) {
+                array[i] = i < skewedFrom ? random.nextInt(100) + 1 : random.nextInt(500) + 500;
+            }
+        }
+    }
+    
+    @State(Scope.Benchmark)
+    public static class Threads {
+        @Param({"1", "2", "4", "8"})
+        public int threadCount;
+    }
+    
+    @State(Scope.Benchmark)
+    public static class Schedule {
+        @Param({"STATIC", "SELF", "GUIDED"})
+        public MultithreadedSum.Scheduling scheduling;
+    }
+    
+    @State(Scope.Benchmark)
+    public static class Concurrency {
+        @Param({"100", "1000", "10000"})
+        public int maxConcurrency;
+    }
+    
+    @State(Scope.Benchmark)
+    public static class Split {
+        @Param({"1000", "10000", "100000"})
+        public int threshold;
+    }
+    
+    @Benchmark
+    public long sequential(Data data) {
+        return SequentialSum.calculate(data.array);
+    }
+    
+    @Benchmark
+    public long vector(Data data) {
+        return VectorSum.calculate(data.array);
+    }
+    
+    @Benchmark
+    public long multithreaded(Data data, Threads threads)
+            throws InterruptedException, ExecutionException {
+        return MultithreadedSum.calculate(data.array, threads.threadCount);
+    }
+    
+    // Неравномерная нагрузка: -p workload=SPIN -p distribution=SKEWED
+    @Benchmark
+    public long multithreadedScheduled(Data data, Threads threads, Schedule schedule)
+            throws InterruptedException, ExecutionException {
+        return MultithreadedSum.calculate(data.array, threads.threadCount, schedule.scheduling);
+    }
+    
+    // Имеет смысл прежде всего с -p workload=SLEEP
+    @Benchmark
+    public long virtualThreads(Data data, Concurrency concurrency)
+            throws InterruptedException, ExecutionException {
+        return VirtualThreadSum.calculate(data.array, concurrency.maxConcurrency);
+    }
+    
+    @Benchmark
+    public long sumService(Data data) throws InterruptedException, ExecutionException {
+        return SumService.shared().sum(data.array);
+    }
+    
+    @Benchmark
+    public long forkJoin(Data data, Threads threads, Split split) {
+        return ForkJoinSum.calculate(data.array, split.threshold, threads.threadCount);
+    }
+    
+    @Benchmark
+    public long forkJoinAdaptive(Data data) {
+        return ForkJoinSum.calculate(data.array);
+    }
+}
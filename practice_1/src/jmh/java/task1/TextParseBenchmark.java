@@ -0,0 +1,76 @@
+package jmh.java.task1;
+
+import main.java.task1.TextFileSum;
+import main.java.task1.Workload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Сумма текстового файла: построчное чтение с Integer.parseInt
+// против параллельного разбора байтов в TextFileSum
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class TextParseBenchmark {
+    
+    @Param({"1000000", "10000000", "100000000"})
+    public int size;
+    
+    private Path file;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Workload.setMode(Workload.Mode.NONE);
+        Workload.setVerbose(false);
+        
+        Random random = new Random(42);
+        int[] array = new int[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = random.nextInt() >> random.nextInt(32);
+        }
+        file = Files.createTempFile("text-parse-", ".txt");
+        TextFileSum.write(file, array);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+    
+    @Benchmark
+    public long readerParseInt() throws IOException {
+        long sum = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                sum += Integer.parseInt(line);
+            }
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public long textFileSum() throws IOException {
+        return TextFileSum.calculate(file);
+    }
+}
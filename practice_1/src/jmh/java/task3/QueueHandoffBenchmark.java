@@ -0,0 +1,136 @@
+package jmh.java.task3;
+
+import main.java.task3.SpmcRingBuffer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// LinkedBlockingQueue против SpmcRingBuffer с разными стратегиями ожидания.
+// transfer - пропускная способность: один производитель и два потребителя;
+// roundTrip - задержка передачи: элемент уходит во встречный поток и
+// возвращается обратно, то есть в результате две передачи
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueueHandoffBenchmark {
+    
+    private static final Long ITEM = 42L;
+    
+    static BlockingQueue<Long> createQueue(String kind, int capacity) {
+        if ("LINKED".equals(kind)) {
+            return new LinkedBlockingQueue<>(capacity);
+        }
+        return new SpmcRingBuffer<>(capacity, SpmcRingBuffer.WaitStrategy.valueOf(kind));
+    }
+    
+    @State(Scope.Group)
+    public static class Transfer {
+        @Param({"LINKED", "BUSY_SPIN", "YIELD", "PARK"})
+        public String queue;
+        
+        @Param({"1024"})
+        public int capacity;
+        
+        BlockingQueue<Long> elements;
+        
+        @Setup(Level.Iteration)
+        public void setUp() {
+            elements = createQueue(queue, capacity);
+        }
+    }
+    
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long transferred;
+        public long timedOut;
+        
+        @Setup(Level.Iteration)
+        public void reset() {
+            transferred = 0;
+            timedOut = 0;
+        }
+    }
+    
+    @Benchmark
+    @Group("transfer")
+    @GroupThreads(1)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean produce(Transfer transfer) throws InterruptedException {
+        return transfer.elements.offer(ITEM, 1, TimeUnit.MILLISECONDS);
+    }
+    
+    @Benchmark
+    @Group("transfer")
+    @GroupThreads(2)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Long consume(Transfer transfer, Counters counters) throws InterruptedException {
+        Long element = transfer.elements.poll(1, TimeUnit.MILLISECONDS);
+        if (element == null) {
+            counters.timedOut++;
+        } else {
+            counters.transferred++;
+        }
+        return element;
+    }
+    
+    @State(Scope.Benchmark)
+    public static class Echo {
+        @Param({"LINKED", "BUSY_SPIN", "YIELD", "PARK"})
+        public String queue;
+        
+        BlockingQueue<Long> requests;
+        BlockingQueue<Long> responses;
+        private Thread echoThread;
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            requests = createQueue(queue, 16);
+            responses = createQueue(queue, 16);
+            echoThread = new Thread(() -> {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        responses.put(requests.take());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "echo");
+            echoThread.setDaemon(true);
+            echoThread.start();
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() throws InterruptedException {
+            echoThread.interrupt();
+            echoThread.join(1000);
+        }
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Long roundTrip(Echo echo) throws InterruptedException {
+        echo.requests.put(ITEM);
+        return echo.responses.take();
+    }
+}
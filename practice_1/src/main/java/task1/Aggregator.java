@@ -0,0 +1,14 @@
+package main.java.task1;
+
+// Накопитель для Reduction. merge должен быть ассоциативным и коммутативным:
+// в пуле потоков части массива достаются потокам в произвольном порядке
+public interface Aggregator<A> {
+    
+    A create();
+    
+    void add(A accumulator, long value);
+    
+    void add(A accumulator, double value);
+    
+    A merge(A left, A right);
+}
@@ -0,0 +1,334 @@
+package main.java.task1;
+
+import java.util.Arrays;
+import java.util.List;
+
+public final class Aggregators {
+    
+    private Aggregators() {
+    }
+    
+    public static Aggregator<Sum> sum() {
+        return new Aggregator<>() {
+            @Override
+            public Sum create() {
+                return new Sum();
+            }
+            
+            @Override
+            public void add(Sum sum, long value) {
+                sum.integral += value;
+            }
+            
+            @Override
+            public void add(Sum sum, double value) {
+                sum.real += value;
+            }
+            
+            @Override
+            public Sum merge(Sum left, Sum right) {
+                left.integral += right.integral;
+                left.real += right.real;
+                return left;
+            }
+        };
+    }
+    
+    public static Aggregator<MinMax> minMax() {
+        return new Aggregator<>() {
+            @Override
+            public MinMax create() {
+                return new MinMax();
+            }
+            
+            @Override
+            public void add(MinMax minMax, long value) {
+                minMax.minLong = Math.min(minMax.minLong, value);
+                minMax.maxLong = Math.max(minMax.maxLong, value);
+                minMax.count++;
+            }
+            
+            @Override
+            public void add(MinMax minMax, double value) {
+                minMax.minDouble = Math.min(minMax.minDouble, value);
+                minMax.maxDouble = Math.max(minMax.maxDouble, value);
+                minMax.count++;
+            }
+            
+            @Override
+            public MinMax merge(MinMax left, MinMax right) {
+                left.minLong = Math.min(left.minLong, right.minLong);
+                left.maxLong = Math.max(left.maxLong, right.maxLong);
+                left.minDouble = Math.min(left.minDouble, right.minDouble);
+                left.maxDouble = Math.max(left.maxDouble, right.maxDouble);
+                left.count += right.count;
+                return left;
+            }
+        };
+    }
+    
+    public static Aggregator<Stats> stats() {
+        return new Aggregator<>() {
+            @Override
+            public Stats create() {
+                return new Stats();
+            }
+            
+            @Override
+            public void add(Stats stats, long value) {
+                stats.add(value);
+            }
+            
+            @Override
+            public void add(Stats stats, double value) {
+                stats.add(value);
+            }
+            
+            @Override
+            public Stats merge(Stats left, Stats right) {
+                left.merge(right);
+                return left;
+            }
+        };
+    }
+    
+    public static Aggregator<Histogram> histogram(double low, double high, int buckets) {
+        if (!(low < high) || buckets < 1) {
+            throw new IllegalArgumentException("Некорректные границы гистограммы: [" + low + ", " + high
+                    + "), корзин: " + buckets);
+        }
+        
+        return new Aggregator<>() {
+            @Override
+            public Histogram create() {
+                return new Histogram(low, high, buckets);
+            }
+            
+            @Override
+            public void add(Histogram histogram, long value) {
+                histogram.add(value);
+            }
+            
+            @Override
+            public void add(Histogram histogram, double value) {
+                histogram.add(value);
+            }
+            
+            @Override
+            public Histogram merge(Histogram left, Histogram right) {
+                left.merge(right);
+                return left;
+            }
+        };
+    }
+    
+    // Несколько статистик за один проход по данным
+    public static Aggregator<Results> all(Aggregator<?>... parts) {
+        List<Aggregator<?>> aggregators = List.of(parts);
+        
+        return new Aggregator<>() {
+            @Override
+            public Results create() {
+                Object[] accumulators = new Object[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    accumulators[i] = parts[i].create();
+                }
+                return new Results(aggregators, accumulators);
+            }
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public void add(Results results, long value) {
+                for (int i = 0; i < parts.length; i++) {
+                    ((Aggregator<Object>) parts[i]).add(results.accumulators[i], value);
+                }
+            }
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public void add(Results results, double value) {
+                for (int i = 0; i < parts.length; i++) {
+                    ((Aggregator<Object>) parts[i]).add(results.accumulators[i], value);
+                }
+            }
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public Results merge(Results left, Results right) {
+                for (int i = 0; i < parts.length; i++) {
+                    left.accumulators[i] = ((Aggregator<Object>) parts[i])
+                            .merge(left.accumulators[i], right.accumulators[i]);
+                }
+                return left;
+            }
+        };
+    }
+    
+    public static class Sum {
+        private long integral;
+        private double real;
+        
+        public long getLong() {
+            return integral;
+        }
+        
+        public double getDouble() {
+            return real + integral;
+        }
+    }
+    
+    public static class MinMax {
+        private long minLong = Long.MAX_VALUE;
+        private long maxLong = Long.MIN_VALUE;
+        private double minDouble = Double.POSITIVE_INFINITY;
+        private double maxDouble = Double.NEGATIVE_INFINITY;
+        private long count;
+        
+        public long getMinLong() {
+            return minLong;
+        }
+        
+        public long getMaxLong() {
+            return maxLong;
+        }
+        
+        public double getMin() {
+            return count == 0 ? Double.NaN : Math.min(minDouble, minLong);
+        }
+        
+        public double getMax() {
+            return count == 0 ? Double.NaN : Math.max(maxDouble, maxLong);
+        }
+        
+        public long getCount() {
+            return count;
+        }
+    }
+    
+    // Среднее и дисперсия по Уэлфорду; слияние частей - по формуле Чана
+    public static class Stats {
+        private long count;
+        private double mean;
+        private double m2;
+        
+        void add(double value) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+        }
+        
+        void merge(Stats other) {
+            if (other.count == 0) {
+                return;
+            }
+            if (count == 0) {
+                count = other.count;
+                mean = other.mean;
+                m2 = other.m2;
+                return;
+            }
+            
+            long total = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / total;
+            m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+            count = total;
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        public double getMean() {
+            return count == 0 ? Double.NaN : mean;
+        }
+        
+        public double getVariance() {
+            return count == 0 ? Double.NaN : m2 / count;
+        }
+        
+        public double getSampleVariance() {
+            return count < 2 ? Double.NaN : m2 / (count - 1);
+        }
+        
+        public double getStandardDeviation() {
+            return Math.sqrt(getVariance());
+        }
+    }
+    
+    public static class Histogram {
+        private final double low;
+        private final double high;
+        private final long[] counts;
+        private long underflow;
+        private long overflow;
+        
+        Histogram(double low, double high, int buckets) {
+            this.low = low;
+            this.high = high;
+            this.counts = new long[buckets];
+        }
+        
+        void add(double value) {
+            if (value < low) {
+                underflow++;
+            } else if (value >= high) {
+                overflow++;
+            } else {
+                int bucket = (int) ((value - low) / (high - low) * counts.length);
+                counts[Math.min(bucket, counts.length - 1)]++;
+            }
+        }
+        
+        void merge(Histogram other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            underflow += other.underflow;
+            overflow += other.overflow;
+        }
+        
+        public long[] getCounts() {
+            return counts.clone();
+        }
+        
+        public double getBucketLow(int bucket) {
+            return low + (high - low) * bucket / counts.length;
+        }
+        
+        public long getUnderflow() {
+            return underflow;
+        }
+        
+        public long getOverflow() {
+            return overflow;
+        }
+        
+        @Override
+        public String toString() {
+            return "[" + low + ", " + high + ") " + Arrays.toString(counts)
+                    + " <" + underflow + " >" + overflow;
+        }
+    }
+    
+    public static class Results {
+        private final List<Aggregator<?>> aggregators;
+        private final Object[] accumulators;
+        
+        Results(List<Aggregator<?>> aggregators, Object[] accumulators) {
+            this.aggregators = aggregators;
+            this.accumulators = accumulators;
+        }
+        
+        @SuppressWarnings("unchecked")
+        public <A> A get(Aggregator<A> aggregator) {
+            for (int i = 0; i < accumulators.length; i++) {
+                if (aggregators.get(i) == aggregator) {
+                    return (A) accumulators[i];
+                }
+            }
+            throw new IllegalArgumentException("Накопитель не входит в набор");
+        }
+    }
+}
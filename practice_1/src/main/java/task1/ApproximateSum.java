@@ -0,0 +1,326 @@
+package main.java.task1;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Оценка суммы со стратифицированной выборкой: массив делится на страты, и потоки
+// по кругу берут из каждой страты очередную порцию элементов в псевдослучайном
+// порядке. Оценку с доверительным интервалом можно получить в любой момент,
+// а когда выборка покроет все элементы, сумма станет точной
+public class ApproximateSum {
+    
+    private static final int DEFAULT_STRATA = 64;
+    private static final int BATCH_SIZE = 32;
+    private static final double Z_95 = 1.96;
+    private static final double GOLDEN_RATIO = 0.6180339887498949;
+    
+    public static Estimate estimate(int[] array, long budget, TimeUnit unit) throws InterruptedException {
+        Run run = start(array);
+        try {
+            return run.await(budget, unit);
+        } finally {
+            run.cancel();
+        }
+    }
+    
+    public static Run start(int[] array) {
+        return start(array, DEFAULT_STRATA, Runtime.getRuntime().availableProcessors());
+    }
+    
+    // Выборка идет в виртуальных потоках: при блокирующей работе на элемент
+    // workerCount можно брать намного больше числа ядер
+    public static Run start(int[] array, int strataCount, int workerCount) {
+        if (strataCount < 1 || workerCount < 1) {
+            throw new IllegalArgumentException("Число страт и потоков должно быть положительным: "
+                    + strataCount + ", " + workerCount);
+        }
+        
+        Run run = new Run(array, Math.min(strataCount, Math.max(1, array.length)), workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            Thread.ofVirtual().name("approximate-sum-" + (i + 1)).start(run::work);
+        }
+        return run;
+    }
+    
+    public static class Run {
+        private final int[] array;
+        private final Stratum[] strata;
+        private final long totalUnits;
+        private final AtomicLong nextUnit = new AtomicLong();
+        private final AtomicInteger activeWorkers;
+        private final CompletableFuture<Long> exact = new CompletableFuture<>();
+        private final long startedAt = System.nanoTime();
+        private volatile boolean cancelled;
+        
+        Run(int[] array, int strataCount, int workerCount) {
+            this.array = array;
+            this.strata = new Stratum[strataCount];
+            this.activeWorkers = new AtomicInteger(workerCount);
+            
+            int maxLength = 0;
+            for (int i = 0; i < strataCount; i++) {
+                int from = (int) ((long) array.length * i / strataCount);
+                int to = (int) ((long) array.length * (i + 1) / strataCount);
+                strata[i] = new Stratum(from, to);
+                maxLength = Math.max(maxLength, to - from);
+            }
+            
+            long rounds = (maxLength + BATCH_SIZE - 1) / BATCH_SIZE;
+            this.totalUnits = rounds * strataCount;
+            if (totalUnits == 0) {
+                exact.complete(0L);
+            }
+        }
+        
+        public Estimate snapshot() {
+            long sampled = 0;
+            Aggregators.Stats pooled = new Aggregators.Stats();
+            Aggregators.Stats[] copies = new Aggregators.Stats[strata.length];
+            long[] exactSums = new long[strata.length];
+            
+            for (int i = 0; i < strata.length; i++) {
+                synchronized (strata[i]) {
+                    copies[i] = new Aggregators.Stats();
+                    copies[i].merge(strata[i].stats);
+                    exactSums[i] = strata[i].sum;
+                }
+                pooled.merge(copies[i]);
+                sampled += copies[i].getCount();
+            }
+            
+            if (sampled == array.length) {
+                long sum = 0;
+                for (long stratumSum : exactSums) {
+                    sum += stratumSum;
+                }
+                return Estimate.exact(sum, array.length, elapsed());
+            }
+            if (sampled == 0) {
+                return new Estimate(Double.NaN, Double.POSITIVE_INFINITY, 0, array.length, elapsed());
+            }
+            
+            double pooledVariance = pooled.getCount() < 2 ? 0 : pooled.getSampleVariance();
+            double value = 0;
+            double variance = 0;
+            for (int i = 0; i < strata.length; i++) {
+                long size = strata[i].to - strata[i].from;
+                long count = copies[i].getCount();
+                
+                if (count == size) {
+                    value += exactSums[i];
+                } else if (count == 0) {
+                    // Страта еще не тронута: берем общее среднее и считаем ее одним наблюдением
+                    value += size * pooled.getMean();
+                    variance += (double) size * size * pooledVariance;
+                } else {
+                    double stratumVariance = count < 2 ? pooledVariance : copies[i].getSampleVariance();
+                    value += size * copies[i].getMean();
+                    variance += (double) size * size * (1 - (double) count / size) * stratumVariance / count;
+                }
+            }
+            
+            return new Estimate(value, Z_95 * Math.sqrt(variance), sampled, array.length, elapsed());
+        }
+        
+        // Ждет точного результата не дольше timeout и возвращает то, что успели посчитать
+        public Estimate await(long timeout, TimeUnit unit) throws InterruptedException {
+            try {
+                exact.get(timeout, unit);
+            } catch (TimeoutException | CancellationException e) {
+                // Время вышло или выборку отменили: отдаем текущую оценку
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+            return snapshot();
+        }
+        
+        public CompletableFuture<Long> exact() {
+            return exact;
+        }
+        
+        // Незавершенный точный результат отменяется: иначе exact().get() ждал бы вечно
+        public void cancel() {
+            cancelled = true;
+            exact.cancel(false);
+        }
+        
+        private void work() {
+            try {
+                long unit;
+                while (!cancelled && (unit = nextUnit.getAndIncrement()) < totalUnits) {
+                    Stratum stratum = strata[(int) (unit % strata.length)];
+                    long round = unit / strata.length;
+                    stratum.sample(array, round * BATCH_SIZE);
+                }
+            } finally {
+                if (activeWorkers.decrementAndGet() == 0) {
+                    Estimate last = snapshot();
+                    if (last.isExact()) {
+                        exact.complete(last.getExactSum());
+                    } else if (cancelled) {
+                        exact.cancel(false);
+                    } else {
+                        exact.completeExceptionally(new IllegalStateException(
+                                "Выборка остановлена на " + last.getSampled() + "/" + last.getTotal()));
+                    }
+                }
+            }
+        }
+        
+        private long elapsed() {
+            return System.nanoTime() - startedAt;
+        }
+    }
+    
+    static class Stratum {
+        private final int from;
+        private final int to;
+        private final long offset;
+        private final long stride;
+        private final Aggregators.Stats stats = new Aggregators.Stats();
+        private long sum;
+        
+        Stratum(int from, int to) {
+            this.from = from;
+            this.to = to;
+            
+            int length = to - from;
+            this.offset = length == 0 ? 0 : ThreadLocalRandom.current().nextInt(length);
+            this.stride = coprimeStride(length);
+        }
+        
+        // Обход страты с шагом, взаимно простым с ее длиной: каждый элемент
+        // встретится ровно один раз, а соседние позиции разнесены по страте
+        void sample(int[] array, long firstPosition) {
+            int length = to - from;
+            long lastPosition = Math.min(length, firstPosition + BATCH_SIZE);
+            if (firstPosition >= lastPosition) {
+                return;
+            }
+            
+            Aggregators.Stats batch = new Aggregators.Stats();
+            long batchSum = 0;
+            for (long position = firstPosition; position < lastPosition; position++) {
+                int value = array[from + (int) ((offset + position * stride) % length)];
+                simulateWork(value);
+                batch.add(value);
+                batchSum += value;
+            }
+            
+            synchronized (this) {
+                stats.merge(batch);
+                sum += batchSum;
+            }
+        }
+        
+        private static long coprimeStride(int length) {
+            if (length <= 2) {
+                return 1;
+            }
+            long stride = Math.max(1, Math.round(length * GOLDEN_RATIO));
+            while (gcd(stride, length) != 1) {
+                stride++;
+            }
+            return stride;
+        }
+        
+        private static long gcd(long a, long b) {
+            while (b != 0) {
+                long t = a % b;
+                a = b;
+                b = t;
+            }
+            return a;
+        }
+        
+        private static void simulateWork(int value) {
+            try {
+                Workload.perform(value);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    public static class Estimate {
+        private final double value;
+        private final double halfWidth;
+        private final long sampled;
+        private final long total;
+        private final long elapsedNanos;
+        private final long exactSum;
+        
+        Estimate(double value, double halfWidth, long sampled, long total, long elapsedNanos) {
+            this(value, halfWidth, sampled, total, elapsedNanos, 0);
+        }
+        
+        private Estimate(double value, double halfWidth, long sampled, long total, long elapsedNanos,
+                         long exactSum) {
+            this.value = value;
+            this.halfWidth = halfWidth;
+            this.sampled = sampled;
+            this.total = total;
+            this.elapsedNanos = elapsedNanos;
+            this.exactSum = exactSum;
+        }
+        
+        static Estimate exact(long sum, long total, long elapsedNanos) {
+            return new Estimate(sum, 0, total, total, elapsedNanos, sum);
+        }
+        
+        public double getValue() {
+            return value;
+        }
+        
+        // Полуширина 95% доверительного интервала
+        public double getHalfWidth() {
+            return halfWidth;
+        }
+        
+        public double getLower() {
+            return value - halfWidth;
+        }
+        
+        public double getUpper() {
+            return value + halfWidth;
+        }
+        
+        public boolean isExact() {
+            return sampled == total;
+        }
+        
+        public long getExactSum() {
+            if (!isExact()) {
+                throw new IllegalStateException("Просмотрены не все элементы: " + sampled + "/" + total);
+            }
+            return exactSum;
+        }
+        
+        public long getSampled() {
+            return sampled;
+        }
+        
+        public long getTotal() {
+            return total;
+        }
+        
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+        
+        @Override
+        public String toString() {
+            if (isExact()) {
+                return String.format("%d (точно, %.1f мс)", exactSum, elapsedNanos / 1_000_000.0);
+            }
+            return String.format("%.1f ± %.1f (95%%, просмотрено %d/%d, %.1f мс)",
+                    value, halfWidth, sampled, total, elapsedNanos / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package main.java.task1;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Дерево Фенвика на атомарных long: точечное обновление и сумма диапазона за O(log n)
+// без блокировок. Каждое обновление меняет узлы по одному, поэтому запрос, идущий
+// одновременно с ним, может увидеть его частично; после завершения обновлений
+// суммы точные
+public class ConcurrentFenwickTree {
+    private final int size;
+    private final AtomicLongArray values;
+    private final AtomicLongArray tree;
+    
+    public ConcurrentFenwickTree(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Размер не может быть отрицательным: " + size);
+        }
+        this.size = size;
+        this.values = new AtomicLongArray(size);
+        this.tree = new AtomicLongArray(size + 1);
+    }
+    
+    public ConcurrentFenwickTree(int[] array) {
+        this(array.length);
+        
+        // Линейное построение: каждый узел передает свою сумму родителю
+        long[] nodes = new long[size + 1];
+        for (int i = 1; i <= size; i++) {
+            nodes[i] += array[i - 1];
+            values.set(i - 1, array[i - 1]);
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                nodes[parent] += nodes[i];
+            }
+        }
+        for (int i = 1; i <= size; i++) {
+            tree.set(i, nodes[i]);
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public long get(int index) {
+        checkIndex(index);
+        return values.get(index);
+    }
+    
+    public void add(int index, long delta) {
+        checkIndex(index);
+        values.getAndAdd(index, delta);
+        addToTree(index, delta);
+    }
+    
+    public void set(int index, long value) {
+        checkIndex(index);
+        long previous = values.getAndSet(index, value);
+        addToTree(index, value - previous);
+    }
+    
+    // Сумма элементов [0, end)
+    public long prefixSum(int end) {
+        if (end < 0 || end > size) {
+            throw new IndexOutOfBoundsException("Граница вне диапазона: " + end);
+        }
+        
+        long sum = 0;
+        for (int i = end; i > 0; i -= i & -i) {
+            sum += tree.get(i);
+        }
+        return sum;
+    }
+    
+    // Сумма элементов [from, to)
+    public long rangeSum(int from, int to) {
+        if (from > to) {
+            throw new IllegalArgumentException("Начало диапазона больше конца: " + from + " > " + to);
+        }
+        return prefixSum(to) - prefixSum(from);
+    }
+    
+    private void addToTree(int index, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        for (int i = index + 1; i <= size; i += i & -i) {
+            tree.getAndAdd(i, delta);
+        }
+    }
+    
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Индекс вне диапазона: " + index);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package main.java.task1;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ForkJoinStats {
+    private final long sum;
+    private final int threshold;
+    private final int parallelism;
+    private final long taskCount;
+    private final long leafCount;
+    private final int maxDepth;
+    private final long stealCount;
+    private final long totalLeafNanos;
+    private final long minLeafNanos;
+    private final long maxLeafNanos;
+    private final long elapsedNanos;
+    
+    private ForkJoinStats(long sum, int threshold, int parallelism, Recorder recorder, long elapsedNanos) {
+        this.sum = sum;
+        this.threshold = threshold;
+        this.parallelism = parallelism;
+        this.taskCount = recorder.tasks.sum();
+        this.leafCount = recorder.leaves.sum();
+        this.maxDepth = (int) recorder.maxDepth.get();
+        this.stealCount = recorder.steals.sum();
+        this.totalLeafNanos = recorder.leafNanos.sum();
+        this.minLeafNanos = leafCount == 0 ? 0 : recorder.minLeafNanos.get();
+        this.maxLeafNanos = recorder.maxLeafNanos.get();
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    public long getSum() {
+        return sum;
+    }
+    
+    public int getThreshold() {
+        return threshold;
+    }
+    
+    public int getParallelism() {
+        return parallelism;
+    }
+    
+    public long getTaskCount() {
+        return taskCount;
+    }
+    
+    public long getLeafCount() {
+        return leafCount;
+    }
+    
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+    
+    public long getStealCount() {
+        return stealCount;
+    }
+    
+    public long getMinLeafNanos() {
+        return minLeafNanos;
+    }
+    
+    public long getMaxLeafNanos() {
+        return maxLeafNanos;
+    }
+    
+    public long getAverageLeafNanos() {
+        return leafCount == 0 ? 0 : totalLeafNanos / leafCount;
+    }
+    
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+    
+    public void print() {
+        System.out.println("  Пороговое значение для деления: " + threshold);
+        System.out.println("  Количество потоков в пуле: " + parallelism);
+        System.out.println("  Всего создано подзадач: " + taskCount + " (листовых: " + leafCount + ")");
+        System.out.println("  Максимальная глубина: " + maxDepth);
+        System.out.println("  Украдено задач: " + stealCount);
+        System.out.printf("  Время листа: мин %.1f мкс, сред %.1f мкс, макс %.1f мкс%n",
+                minLeafNanos / 1000.0, getAverageLeafNanos() / 1000.0, maxLeafNanos / 1000.0);
+    }
+    
+    // Счетчики одного запуска: у каждого вызова calculate свой экземпляр
+    static class Recorder {
+        private final LongAdder tasks = new LongAdder();
+        private final LongAdder leaves = new LongAdder();
+        private final LongAdder steals = new LongAdder();
+        private final LongAdder leafNanos = new LongAdder();
+        private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+        private final LongAccumulator minLeafNanos = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator maxLeafNanos = new LongAccumulator(Math::max, 0);
+        
+        void task(int depth) {
+            tasks.increment();
+            maxDepth.accumulate(depth);
+        }
+        
+        void steal() {
+            steals.increment();
+        }
+        
+        void leaf(long nanos) {
+            leaves.increment();
+            leafNanos.add(nanos);
+            minLeafNanos.accumulate(nanos);
+            maxLeafNanos.accumulate(nanos);
+        }
+        
+        long taskCount() {
+            return tasks.sum();
+        }
+        
+        ForkJoinStats finish(long sum, int threshold, int parallelism, long elapsedNanos) {
+            return new ForkJoinStats(sum, threshold, parallelism, this, elapsedNanos);
+        }
+    }
+}
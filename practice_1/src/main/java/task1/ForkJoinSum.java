@@ -1,27 +1,137 @@
 package main.java.task1;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveTask;
 
-public class ForkJoinSum {
+public class ForkJoinSum implements SumEngine {
     
-    private static final int THRESHOLD = 1000;
+    private static final int LEAVES_PER_WORKER = 8;
+    private static final long MIN_LEAF_NANOS = 50_000;
+    private static final int PROBE_ELEMENTS = 4096;
+    private static final int PROBE_WORK_ELEMENTS = 4;
+    private static final int PROBE_ROUNDS = 3;
+    
+    private static volatile long probeSink;
+    // Стоимость нагрузки на элемент замеряется один раз на режим: в SLEEP замер
+    // спит несколько миллисекунд, и повторять его на каждом вызове дорого
+    private static final Map<Workload.Mode, Double> WORK_NANOS = new ConcurrentHashMap<>();
+    
+    private final int parallelism;
+    
+    public ForkJoinSum() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    public ForkJoinSum(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Уровень параллелизма должен быть положительным: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+    
+    @Override
+    public String name() {
+        return "ForkJoin (параллелизм: " + parallelism + ")";
+    }
+    
+    @Override
+    public int parallelism() {
+        return parallelism;
+    }
+    
+    @Override
+    public long sum(int[] array, Workload.Mode mode, boolean verbose) {
+        ForkJoinPool pool = Pools.forkJoin(parallelism);
+        return run(array, chooseThreshold(array, parallelism, mode), pool, mode, verbose).getSum();
+    }
     
     public static long calculate(int[] array) {
-        ForkJoinPool pool = new ForkJoinPool();
-        
-        System.out.println("  Пороговое значение для деления: " + THRESHOLD);
-        System.out.println("  Количество потоков в пуле: " + pool.getParallelism());
+        return calculateWithStats(array).getSum();
+    }
+    
+    public static long calculate(int[] array, int threshold, int parallelism) {
+        return calculateWithStats(array, threshold, parallelism).getSum();
+    }
+    
+    public static ForkJoinStats calculateWithStats(int[] array) {
+        ForkJoinPool pool = Pools.forkJoin(Runtime.getRuntime().availableProcessors());
+        int threshold = chooseThreshold(array, pool.getParallelism(), Workload.getMode());
+        return run(array, threshold, pool, Workload.getMode(), Workload.isVerbose());
+    }
+    
+    public static ForkJoinStats calculateWithStats(int[] array, int threshold, int parallelism) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Пороговое значение должно быть положительным: " + threshold);
+        }
         
-        SumTask rootTask = new SumTask(array, 0, array.length, 0);
+        return run(array, threshold, Pools.forkJoin(parallelism), Workload.getMode(), Workload.isVerbose());
+    }
+    
+    private static ForkJoinStats run(int[] array, int threshold, ForkJoinPool pool,
+                                     Workload.Mode mode, boolean verbose) {
+        ForkJoinStats.Recorder recorder = new ForkJoinStats.Recorder();
+        SumTask rootTask = new SumTask(array, 0, array.length, 0, threshold, recorder, mode, verbose);
         
+        long startTime = System.nanoTime();
         long result = pool.invoke(rootTask);
+        long elapsed = System.nanoTime() - startTime;
+        
+        ForkJoinStats stats = recorder.finish(result, threshold, pool.getParallelism(), elapsed);
+        if (verbose) {
+            stats.print();
+        }
+        
+        return stats;
+    }
+    
+    // Листьев должно хватать для балансировки между потоками, но каждый лист
+    // должен работать заметно дольше, чем стоит создание и кража задачи
+    static int chooseThreshold(int[] array, int parallelism, Workload.Mode mode) {
+        int length = array.length;
+        if (length == 0) {
+            return 1;
+        }
+        
+        double nanosPerElement = measureNanosPerElement(array, mode);
+        long minLeaf = (long) Math.ceil(MIN_LEAF_NANOS / nanosPerElement);
+        
+        return balancedThreshold(length, parallelism, minLeaf);
+    }
+    
+    static int balancedThreshold(int length, int parallelism, long minLeaf) {
+        long targetLeaves = (long) Math.max(1, parallelism) * LEAVES_PER_WORKER;
+        long balancedLeaf = (length + targetLeaves - 1) / targetLeaves;
+        
+        return (int) Math.max(1, Math.min(length, Math.max(minLeaf, balancedLeaf)));
+    }
+    
+    private static double measureNanosPerElement(int[] array, Workload.Mode mode) {
+        int probe = Math.min(array.length, PROBE_ELEMENTS);
         
-        pool.shutdown();
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < PROBE_ROUNDS; round++) {
+            long start = System.nanoTime();
+            probeSink = VectorSum.sum(array, 0, probe);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double nanosPerElement = (double) Math.max(1, best) / probe;
         
-        System.out.println("  Всего создано подзадач: " + SumTask.taskCount);
+        if (mode != Workload.Mode.NONE && probe > 0) {
+            nanosPerElement += WORK_NANOS.computeIfAbsent(mode, key -> measureWorkNanos(array, probe, key));
+        }
         
-        return result;
+        return nanosPerElement;
+    }
+    
+    private static double measureWorkNanos(int[] array, int probe, Workload.Mode mode) {
+        int work = Math.min(probe, PROBE_WORK_ELEMENTS);
+        long start = System.nanoTime();
+        for (int i = 0; i < work; i++) {
+            SumTask.simulateWork(mode, array[i]);
+        }
+        return (double) (System.nanoTime() - start) / work;
     }
     
     static class SumTask extends RecursiveTask<Long> {
@@ -29,30 +139,43 @@ public class ForkJoinSum {
         private final int start;
         private final int end;
         private final int depth;
+        private final int threshold;
+        private final ForkJoinStats.Recorder recorder;
+        private final Workload.Mode mode;
+        private final boolean verbose;
+        private Thread forkedBy;
         
-        static int taskCount = 0;
-        
-        public SumTask(int[] array, int start, int end, int depth) {
+        public SumTask(int[] array, int start, int end, int depth, int threshold,
+                       ForkJoinStats.Recorder recorder, Workload.Mode mode, boolean verbose) {
             this.array = array;
             this.start = start;
             this.end = end;
             this.depth = depth;
-            taskCount++;
+            this.threshold = threshold;
+            this.recorder = recorder;
+            this.mode = mode;
+            this.verbose = verbose;
+            recorder.task(depth);
         }
         
         @Override
         protected Long compute() {
+            if (forkedBy != null && forkedBy != Thread.currentThread()) {
+                recorder.steal();
+            }
+            
             int length = end - start;
             
-            if (length <= THRESHOLD) {
+            if (length <= threshold) {
                 return computeDirectly();
             }
             
             int mid = start + length / 2;
             
-            SumTask leftTask = new SumTask(array, start, mid, depth + 1);
-            SumTask rightTask = new SumTask(array, mid, end, depth + 1);
+            SumTask leftTask = new SumTask(array, start, mid, depth + 1, threshold, recorder, mode, verbose);
+            SumTask rightTask = new SumTask(array, mid, end, depth + 1, threshold, recorder, mode, verbose);
             
+            leftTask.forkedBy = Thread.currentThread();
             leftTask.fork();
             
             long rightResult = rightTask.compute();
@@ -63,25 +186,30 @@ public class ForkJoinSum {
         }
         
         private long computeDirectly() {
-            long sum = 0;
-            
-            if (taskCount <= 10) {
+            if (recorder.taskCount() <= 10 && verbose) {
                 System.out.println("  Задача обрабатывает элементы " + 
                                  start + "-" + (end - 1) + 
                                  " (глубина: " + depth + ")");
             }
             
-            for (int i = start; i < end; i++) {
-                sum += array[i];         
-                simulateWork();
+            long leafStart = System.nanoTime();
+            
+            long sum = VectorSum.sum(array, start, end);
+            
+            if (mode != Workload.Mode.NONE) {
+                for (int i = start; i < end; i++) {
+                    simulateWork(mode, array[i]);
+                }
             }
             
+            recorder.leaf(System.nanoTime() - leafStart);
+            
             return sum;
         }
         
-        private void simulateWork() {
+        static void simulateWork(Workload.Mode mode, int value) {
             try {
-                Thread.sleep(1);
+                Workload.perform(mode, value);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
@@ -1,6 +1,15 @@
 package main.java.task1;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 public class Main {
     private static final int ARRAY_SIZE = 10000;
@@ -24,6 +33,26 @@ public class Main {
         
         testForkJoin(array);
         
+        testVector(array);
+        
+        testMappedFile(array);
+        
+        testMultithreadedGuided(array);
+        
+        testVirtualThreads(array);
+        
+        testSumService(array);
+        
+        testReduction(array);
+        
+        testFenwickTree(array);
+        
+        testApproximate(array);
+        
+        testTextFile(array);
+        
+        testRouter(array);
+        
         printComparison();
     }
     
@@ -113,6 +142,323 @@ public class Main {
         System.out.println();
     }
     
+    private static void testVector(int[] array) {
+        System.out.println("4. Векторная реализация (Vector API)");
+        
+        System.gc();
+        long memoryBefore = getUsedMemory();
+        
+        long startTime = System.currentTimeMillis();
+        
+        long sum = VectorSum.calculate(array);
+        
+        long endTime = System.currentTimeMillis();
+        long memoryAfter = getUsedMemory();
+        
+        long executionTime = endTime - startTime;
+        long memoryUsed = (memoryAfter - memoryBefore) / 1024;
+        
+        System.out.println("Результат: " + sum);
+        System.out.println("Время выполнения: " + executionTime + " мс");
+        System.out.println("Использовано памяти: ~" + memoryUsed + " КБ");
+        System.out.println("Ускорение относительно последовательной версии: " + 
+                          String.format("%.2f", getSpeedup(executionTime)));
+        System.out.println();
+    }
+    
+    private static void testMappedFile(int[] array) {
+        System.out.println("5. Суммирование файла через отображение в память");
+        
+        Path file = null;
+        try {
+            file = Files.createTempFile("task1-", ".bin");
+            MappedFileSum.write(file, array);
+            
+            System.gc();
+            long memoryBefore = getUsedMemory();
+            
+            long startTime = System.currentTimeMillis();
+            
+            long sum = MappedFileSum.calculate(file);
+            
+            long endTime = System.currentTimeMillis();
+            long memoryAfter = getUsedMemory();
+            
+            long executionTime = endTime - startTime;
+            long memoryUsed = (memoryAfter - memoryBefore) / 1024;
+            
+            System.out.println("Результат: " + sum);
+            System.out.println("Время выполнения: " + executionTime + " мс");
+            System.out.println("Использовано памяти: ~" + memoryUsed + " КБ");
+            System.out.println("Ускорение относительно последовательной версии: " + 
+                              String.format("%.2f", getSpeedup(executionTime)));
+        } catch (IOException e) {
+            System.err.println("Ошибка: " + e.getMessage());
+        } finally {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        System.out.println();
+    }
+    
+    private static void testMultithreadedGuided(int[] array) {
+        System.out.println("6. Многопоточная реализация с динамическим распределением");
+        System.out.println("Используется потоков: " + THREAD_COUNT);
+        
+        System.gc();
+        long memoryBefore = getUsedMemory();
+        
+        long startTime = System.currentTimeMillis();
+        
+        long sum = 0;
+        try {
+            sum = MultithreadedSum.calculate(array, THREAD_COUNT, MultithreadedSum.Scheduling.GUIDED);
+        } catch (Exception e) {
+            System.err.println("Ошибка: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        long endTime = System.currentTimeMillis();
+        long memoryAfter = getUsedMemory();
+        
+        long executionTime = endTime - startTime;
+        long memoryUsed = (memoryAfter - memoryBefore) / 1024;
+        
+        System.out.println("Результат: " + sum);
+        System.out.println("Время выполнения: " + executionTime + " мс");
+        System.out.println("Использовано памяти: ~" + memoryUsed + " КБ");
+        System.out.println("Ускорение относительно последовательной версии: " + 
+                          String.format("%.2f", getSpeedup(executionTime)));
+        System.out.println();
+    }
+    
+    private static void testVirtualThreads(int[] array) {
+        System.out.println("7. Реализация на виртуальных потоках");
+        
+        System.gc();
+        long memoryBefore = getUsedMemory();
+        
+        long startTime = System.currentTimeMillis();
+        
+        long sum = 0;
+        try {
+            sum = VirtualThreadSum.calculate(array);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Ошибка: " + e.getMessage());
+        } catch (ExecutionException e) {
+            System.err.println("Ошибка: " + e.getCause());
+        }
+        
+        long endTime = System.currentTimeMillis();
+        long memoryAfter = getUsedMemory();
+        
+        long executionTime = endTime - startTime;
+        long memoryUsed = (memoryAfter - memoryBefore) / 1024;
+        
+        System.out.println("Результат: " + sum);
+        System.out.println("Время выполнения: " + executionTime + " мс");
+        System.out.println("Использовано памяти: ~" + memoryUsed + " КБ");
+        System.out.println("Ускорение относительно последовательной версии: " + 
+                          String.format("%.2f", getSpeedup(executionTime)));
+        System.out.println();
+    }
+    
+    private static void testSumService(int[] array) {
+        System.out.println("8. Общий сервис суммирования (4 одновременных задания)");
+        
+        SumService service = SumService.shared();
+        
+        System.gc();
+        long memoryBefore = getUsedMemory();
+        
+        long startTime = System.currentTimeMillis();
+        
+        List<CompletableFuture<Long>> jobs = new ArrayList<>();
+        int part = (array.length + 3) / 4;
+        for (int from = 0; from < array.length; from += part) {
+            int to = Math.min(array.length, from + part);
+            jobs.add(service.submit(Arrays.copyOfRange(array, from, to)));
+        }
+        
+        long sum = 0;
+        try {
+            for (CompletableFuture<Long> job : jobs) {
+                sum += job.get();
+            }
+        } catch (Exception e) {
+            System.err.println("Ошибка: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        long endTime = System.currentTimeMillis();
+        long memoryAfter = getUsedMemory();
+        
+        long executionTime = endTime - startTime;
+        long memoryUsed = (memoryAfter - memoryBefore) / 1024;
+        
+        service.metrics().print();
+        System.out.println("Результат: " + sum);
+        System.out.println("Время выполнения: " + executionTime + " мс");
+        System.out.println("Использовано памяти: ~" + memoryUsed + " КБ");
+        System.out.println("Ускорение относительно последовательной версии: " + 
+                          String.format("%.2f", getSpeedup(executionTime)));
+        System.out.println();
+    }
+    
+    private static void testReduction(int[] array) {
+        System.out.println("9. Свертка нескольких статистик за один проход (Fork/Join)");
+        
+        Aggregator<Aggregators.MinMax> minMax = Aggregators.minMax();
+        Aggregator<Aggregators.Stats> stats = Aggregators.stats();
+        Aggregator<Aggregators.Histogram> histogram = Aggregators.histogram(1, 101, 10);
+        
+        long startTime = System.currentTimeMillis();
+        
+        Aggregators.Results results = Reduction.of(array)
+                .forkJoin(Aggregators.all(minMax, stats, histogram));
+        
+        long executionTime = System.currentTimeMillis() - startTime;
+        
+        System.out.println("Минимум: " + results.get(minMax).getMinLong() + 
+                          ", максимум: " + results.get(minMax).getMaxLong());
+        System.out.println(String.format("Среднее: %.3f, стандартное отклонение: %.3f", 
+                          results.get(stats).getMean(), results.get(stats).getStandardDeviation()));
+        System.out.println("Гистограмма: " + results.get(histogram));
+        System.out.println("Время выполнения: " + executionTime + " мс");
+        System.out.println();
+    }
+    
+    private static void testFenwickTree(int[] array) {
+        System.out.println("10. Дерево Фенвика: обновления и суммы диапазонов за O(log n)");
+        
+        int[] copy = array.clone();
+        ConcurrentFenwickTree tree = new ConcurrentFenwickTree(copy);
+        Random random = new Random(7);
+        int operations = 100_000;
+        
+        long startTime = System.nanoTime();
+        
+        for (int i = 0; i < operations; i++) {
+            int index = random.nextInt(copy.length);
+            int value = random.nextInt(100) + 1;
+            copy[index] = value;
+            tree.set(index, value);
+        }
+        
+        int from = copy.length / 4;
+        int to = copy.length - copy.length / 4;
+        long rangeSum = tree.rangeSum(from, to);
+        
+        long executionTime = System.nanoTime() - startTime;
+        
+        long expected = 0;
+        for (int i = from; i < to; i++) {
+            expected += copy[i];
+        }
+        
+        System.out.println("Сумма элементов " + from + "-" + (to - 1) + ": " + rangeSum + 
+                          " (проверка: " + expected + ")");
+        System.out.println(String.format("Обновлений: %d, среднее время операции: %.0f нс", 
+                          operations, (double) executionTime / operations));
+        System.out.println();
+    }
+    
+    private static void testApproximate(int[] array) {
+        System.out.println("11. Приближенная сумма с ограничением по времени");
+        
+        ApproximateSum.Run run = ApproximateSum.start(array, 64, 64);
+        try {
+            System.out.println("Оценка через 100 мс: " + run.await(100, TimeUnit.MILLISECONDS));
+            System.out.println("Оценка через 500 мс: " + run.await(400, TimeUnit.MILLISECONDS));
+            System.out.println("Точное значение: " + run.await(1, TimeUnit.MINUTES));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Ошибка: " + e.getMessage());
+        } finally {
+            run.cancel();
+        }
+        System.out.println();
+    }
+    
+    private static void testTextFile(int[] array) {
+        System.out.println("12. Разбор и суммирование текстового файла");
+        
+        Path file = null;
+        try {
+            file = Files.createTempFile("task1-", ".txt");
+            TextFileSum.write(file, array);
+            
+            System.gc();
+            long memoryBefore = getUsedMemory();
+            
+            long startTime = System.currentTimeMillis();
+            
+            long sum = TextFileSum.calculate(file);
+            
+            long endTime = System.currentTimeMillis();
+            long memoryAfter = getUsedMemory();
+            
+            long executionTime = endTime - startTime;
+            long memoryUsed = (memoryAfter - memoryBefore) / 1024;
+            
+            System.out.println("Результат: " + sum);
+            System.out.println("Время выполнения: " + executionTime + " мс");
+            System.out.println("Использовано памяти: ~" + memoryUsed + " КБ");
+            System.out.println("Ускорение относительно последовательной версии: " + 
+                              String.format("%.2f", getSpeedup(executionTime)));
+        } catch (IOException e) {
+            System.err.println("Ошибка: " + e.getMessage());
+        } finally {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        System.out.println();
+    }
+    
+    private static void testRouter(int[] array) {
+        System.out.println("13. Автоматический выбор реализации");
+        
+        long sum = 0;
+        long executionTime = 0;
+        long memoryUsed = 0;
+        try {
+            SumRouter router = SumRouter.shared();
+            router.print();
+            
+            System.gc();
+            long memoryBefore = getUsedMemory();
+            
+            long startTime = System.currentTimeMillis();
+            
+            sum = router.sum(array);
+            
+            long endTime = System.currentTimeMillis();
+            long memoryAfter = getUsedMemory();
+            
+            executionTime = endTime - startTime;
+            memoryUsed = (memoryAfter - memoryBefore) / 1024;
+        } catch (Exception e) {
+            System.err.println("Ошибка: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        System.out.println("Результат: " + sum);
+        System.out.println("Время выполнения: " + executionTime + " мс");
+        System.out.println("Использовано памяти: ~" + memoryUsed + " КБ");
+        System.out.println("Ускорение относительно последовательной версии: " + 
+                          String.format("%.2f", getSpeedup(executionTime)));
+        System.out.println();
+    }
+    
     private static long sequentialTime = 0;
     
     private static double getSpeedup(long currentTime) {
@@ -139,5 +485,10 @@ public class Main {
         System.out.println("- ForkJoin обычно эффективнее для рекурсивных задач");
         System.out.println("- Многопоточная версия с пулом потоков хороша для");
         System.out.println("  простого разделения работы");
+        System.out.println("- Векторная версия ускоряет само суммирование, но не");
+        System.out.println("  задержку на элемент; она же используется как листовое");
+        System.out.println("  ядро в многопоточной и ForkJoin версиях");
+        System.out.println("- Задержка на элемент блокирующая, поэтому виртуальные");
+        System.out.println("  потоки держат тысячи элементов в ожидании одновременно");
     }
 }
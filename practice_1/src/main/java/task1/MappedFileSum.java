@@ -0,0 +1,145 @@
+package main.java.task1;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class MappedFileSum {
+    
+    private static final long DEFAULT_CHUNK_BYTES = 64L * 1024 * 1024;
+    
+    public static long calculate(Path file) throws IOException {
+        return calculate(file, DEFAULT_CHUNK_BYTES, Runtime.getRuntime().availableProcessors());
+    }
+    
+    public static long calculate(Path file, long chunkBytes, int parallelism) throws IOException {
+        if (chunkBytes < Integer.BYTES || chunkBytes % Integer.BYTES != 0
+                || chunkBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Размер части должен быть кратен 4 байтам: " + chunkBytes);
+        }
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize % Integer.BYTES != 0) {
+                throw new IllegalArgumentException("Размер файла не кратен 4 байтам: " + fileSize);
+            }
+            
+            long chunkCount = (fileSize + chunkBytes - 1) / chunkBytes;
+            
+            if (Workload.isVerbose()) {
+                System.out.println("  Размер файла: " + fileSize + " байт");
+                System.out.println("  Частей по " + chunkBytes + " байт: " + chunkCount);
+            }
+            
+            ForkJoinPool pool = Pools.forkJoin(parallelism);
+            try {
+                return pool.invoke(new ChunkTask(channel, fileSize, chunkBytes, 0, chunkCount));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+    
+    public static void write(Path file, int[] array) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+            for (int value : array) {
+                if (!buffer.hasRemaining()) {
+                    flush(channel, buffer);
+                }
+                buffer.putInt(value);
+            }
+            flush(channel, buffer);
+        }
+    }
+    
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    static class ChunkTask extends RecursiveTask<Long> {
+        private final FileChannel channel;
+        private final long fileSize;
+        private final long chunkBytes;
+        private final long fromChunk;
+        private final long toChunk;
+        
+        ChunkTask(FileChannel channel, long fileSize, long chunkBytes, long fromChunk, long toChunk) {
+            this.channel = channel;
+            this.fileSize = fileSize;
+            this.chunkBytes = chunkBytes;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+        
+        @Override
+        protected Long compute() {
+            if (toChunk - fromChunk <= 1) {
+                return fromChunk < toChunk ? sumChunk(fromChunk) : 0L;
+            }
+            
+            long mid = fromChunk + (toChunk - fromChunk) / 2;
+            
+            ChunkTask leftTask = new ChunkTask(channel, fileSize, chunkBytes, fromChunk, mid);
+            ChunkTask rightTask = new ChunkTask(channel, fileSize, chunkBytes, mid, toChunk);
+            
+            leftTask.fork();
+            
+            long rightResult = rightTask.compute();
+            
+            long leftResult = leftTask.join();
+            
+            return leftResult + rightResult;
+        }
+        
+        // Часть читается прямо из отображенной памяти, в кучу ничего не копируется
+        private long sumChunk(long chunk) {
+            long position = chunk * chunkBytes;
+            long length = Math.min(chunkBytes, fileSize - position);
+            
+            MappedByteBuffer mapped;
+            try {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            
+            IntBuffer ints = mapped.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            int count = ints.limit();
+            
+            long sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += ints.get(i);
+            }
+            
+            if (Workload.isEnabled()) {
+                for (int i = 0; i < count; i++) {
+                    simulateWork(ints.get(i));
+                }
+            }
+            
+            return sum;
+        }
+        
+        private void simulateWork(int value) {
+            try {
+                Workload.perform(value);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -3,19 +3,101 @@ package main.java.task1;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class MultithreadedSum {
+public class MultithreadedSum implements SumEngine {
+    
+    public enum Scheduling {
+        STATIC,
+        SELF,
+        GUIDED
+    }
+    
+    private static final int CHUNKS_PER_THREAD = 32;
+    private static final int MIN_CHUNK = 16;
+    
+    private final int threadCount;
+    private final Scheduling scheduling;
+    
+    public MultithreadedSum() {
+        this(Runtime.getRuntime().availableProcessors(), Scheduling.GUIDED);
+    }
+    
+    public MultithreadedSum(int threadCount, Scheduling scheduling) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным: " + threadCount);
+        }
+        this.threadCount = threadCount;
+        this.scheduling = scheduling;
+    }
+    
+    @Override
+    public String name() {
+        return "Многопоточная (" + scheduling + ", потоков: " + threadCount + ")";
+    }
+    
+    @Override
+    public int parallelism() {
+        return threadCount;
+    }
+    
+    @Override
+    public long sum(int[] array, Workload.Mode mode, boolean verbose)
+            throws InterruptedException, ExecutionException {
+        return calculate(array, threadCount, scheduling, mode, verbose);
+    }
     
     public static long calculate(int[] array, int threadCount) 
             throws InterruptedException, ExecutionException {
+        return calculate(array, threadCount, Scheduling.STATIC);
+    }
+    
+    public static long calculate(int[] array, int threadCount, Scheduling scheduling) 
+            throws InterruptedException, ExecutionException {
+        return calculate(array, threadCount, scheduling, Workload.getMode(), Workload.isVerbose());
+    }
+    
+    public static long calculate(int[] array, int threadCount, Scheduling scheduling,
+                                 Workload.Mode mode, boolean verbose)
+            throws InterruptedException, ExecutionException {
+        if (scheduling == Scheduling.STATIC) {
+            return calculateStatic(array, threadCount, mode, verbose);
+        }
         
-        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        ExecutorService executor = Pools.fixed(threadCount);
+        List<Future<Long>> futures = new ArrayList<>();
+        
+        ChunkCursor cursor = new ChunkCursor(array.length, threadCount, scheduling);
+        
+        if (verbose) {
+            System.out.println("  Распределение частей: " + scheduling + 
+                              ", минимальная часть: " + cursor.minChunk);
+        }
+        
+        for (int i = 0; i < threadCount; i++) {
+            futures.add(executor.submit(new ChunkWorker(array, cursor, i + 1, mode, verbose)));
+        }
+        
+        long totalSum = 0;
+        for (Future<Long> future : futures) {
+            totalSum += future.get();
+        }
+        
+        return totalSum;
+    }
+    
+    private static long calculateStatic(int[] array, int threadCount, Workload.Mode mode, boolean verbose) 
+            throws InterruptedException, ExecutionException {
+        
+        ExecutorService executor = Pools.fixed(threadCount);
         List<Future<Long>> futures = new ArrayList<>();
         
         int chunkSize = array.length / threadCount;
         int remainder = array.length % threadCount;
         
-        System.out.println("  Размер части для каждого потока: ~" + chunkSize);
+        if (verbose) {
+            System.out.println("  Размер части для каждого потока: ~" + chunkSize);
+        }
         
         int startIndex = 0;
         for (int i = 0; i < threadCount; i++) {
@@ -25,7 +107,7 @@ public class MultithreadedSum {
                 endIndex += remainder;
             }
             
-            SumTask task = new SumTask(array, startIndex, endIndex, i + 1);
+            SumTask task = new SumTask(array, startIndex, endIndex, i + 1, mode, verbose);
             futures.add(executor.submit(task));
             
             startIndex = endIndex;
@@ -35,50 +117,147 @@ public class MultithreadedSum {
         for (int i = 0; i < futures.size(); i++) {
             long partialSum = futures.get(i).get();
             totalSum += partialSum;
-            System.out.println("  Поток " + (i + 1) + " вернул сумму: " + partialSum);
+            if (verbose) {
+                System.out.println("  Поток " + (i + 1) + " вернул сумму: " + partialSum);
+            }
         }
         
-        executor.shutdown();
-        
         return totalSum;
     }
     
+    static long sumRange(int[] array, int startIndex, int endIndex) {
+        return sumRange(array, startIndex, endIndex, Workload.getMode());
+    }
+    
+    static long sumRange(int[] array, int startIndex, int endIndex, Workload.Mode mode) {
+        long sum = VectorSum.sum(array, startIndex, endIndex);
+        
+        if (mode != Workload.Mode.NONE) {
+            for (int i = startIndex; i < endIndex; i++) {
+                simulateWork(mode, array[i]);
+            }
+        }
+        
+        return sum;
+    }
+    
+    private static void simulateWork(Workload.Mode mode, int value) {
+        try {
+            Workload.perform(mode, value);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
     static class SumTask implements Callable<Long> {
         private final int[] array;
         private final int startIndex;
         private final int endIndex;
         private final int taskId;
+        private final Workload.Mode mode;
+        private final boolean verbose;
         
-        public SumTask(int[] array, int startIndex, int endIndex, int taskId) {
+        public SumTask(int[] array, int startIndex, int endIndex, int taskId,
+                       Workload.Mode mode, boolean verbose) {
             this.array = array;
             this.startIndex = startIndex;
             this.endIndex = endIndex;
             this.taskId = taskId;
+            this.mode = mode;
+            this.verbose = verbose;
         }
         
         @Override
         public Long call() {
-            long sum = 0;
+            if (verbose) {
+                System.out.println("  Поток " + taskId + " начал работу с элементами " + 
+                                  startIndex + "-" + (endIndex - 1));
+            }
             
-            System.out.println("  Поток " + taskId + " начал работу с элементами " + 
-                              startIndex + "-" + (endIndex - 1));
+            long sum = sumRange(array, startIndex, endIndex, mode);
             
-            for (int i = startIndex; i < endIndex; i++) {
-                sum += array[i];
-                simulateWork();
+            if (verbose) {
+                System.out.println("  Поток " + taskId + " завершил работу");
             }
             
-            System.out.println("  Поток " + taskId + " завершил работу");
-            
             return sum;
         }
+    }
+    
+    // Общий курсор: потоки забирают части, пока массив не закончится.
+    // SELF выдает части одного размера, GUIDED - пропорционально остатку
+    static class ChunkCursor {
+        private final AtomicInteger next = new AtomicInteger(0);
+        private final int length;
+        private final int threadCount;
+        private final Scheduling scheduling;
+        private final int minChunk;
+        
+        ChunkCursor(int length, int threadCount, Scheduling scheduling) {
+            this.length = length;
+            this.threadCount = threadCount;
+            this.scheduling = scheduling;
+            this.minChunk = Math.max(MIN_CHUNK, length / (threadCount * CHUNKS_PER_THREAD));
+        }
+        
+        int claim() {
+            while (true) {
+                int start = next.get();
+                if (start >= length) {
+                    return -1;
+                }
+                if (next.compareAndSet(start, start + chunkSize(start))) {
+                    return start;
+                }
+            }
+        }
+        
+        int end(int start) {
+            return start + chunkSize(start);
+        }
         
-        private void simulateWork() {
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+        private int chunkSize(int start) {
+            int remaining = length - start;
+            int size = minChunk;
+            if (scheduling == Scheduling.GUIDED) {
+                size = Math.max(minChunk, remaining / (2 * threadCount));
             }
+            return Math.min(size, remaining);
+        }
+    }
+    
+    static class ChunkWorker implements Callable<Long> {
+        private final int[] array;
+        private final ChunkCursor cursor;
+        private final int workerId;
+        private final Workload.Mode mode;
+        private final boolean verbose;
+        
+        ChunkWorker(int[] array, ChunkCursor cursor, int workerId, Workload.Mode mode, boolean verbose) {
+            this.array = array;
+            this.cursor = cursor;
+            this.workerId = workerId;
+            this.mode = mode;
+            this.verbose = verbose;
+        }
+        
+        @Override
+        public Long call() {
+            long sum = 0;
+            int chunks = 0;
+            
+            int start;
+            while ((start = cursor.claim()) >= 0) {
+                int end = cursor.end(start);
+                sum += sumRange(array, start, end, mode);
+                chunks++;
+            }
+            
+            if (verbose) {
+                System.out.println("  Поток " + workerId + " обработал частей: " + chunks);
+            }
+            
+            return sum;
         }
     }
 }
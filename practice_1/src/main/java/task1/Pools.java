@@ -0,0 +1,37 @@
+package main.java.task1;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Пулы создаются один раз на процесс и переиспользуются между вызовами:
+// старт потоков и прогрев JIT не оплачиваются на каждом запросе
+final class Pools {
+    private static final Map<Integer, ForkJoinPool> FORK_JOIN_POOLS = new ConcurrentHashMap<>();
+    private static final Map<Integer, ExecutorService> FIXED_POOLS = new ConcurrentHashMap<>();
+    
+    private Pools() {
+    }
+    
+    static ForkJoinPool forkJoin(int parallelism) {
+        return FORK_JOIN_POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+    }
+    
+    static ExecutorService fixed(int threadCount) {
+        return FIXED_POOLS.computeIfAbsent(threadCount,
+                count -> Executors.newFixedThreadPool(count, daemonThreads("sum-pool-" + count)));
+    }
+    
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,158 @@
+package main.java.task1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+
+// Обобщение схем суммирования на любые ассоциативные накопители:
+// последовательно, в общем пуле фиксированного размера из Pools (части через
+// ChunkCursor) и через Fork/Join
+public final class Reduction {
+    
+    private static final long MIN_LEAF = 4096;
+    
+    private final Source source;
+    
+    private Reduction(Source source) {
+        this.source = source;
+    }
+    
+    public static Reduction of(int[] array) {
+        return new Reduction(new Source() {
+            @Override
+            public int length() {
+                return array.length;
+            }
+            
+            @Override
+            public <A> void accumulate(Aggregator<A> aggregator, A accumulator, int from, int to) {
+                for (int i = from; i < to; i++) {
+                    aggregator.add(accumulator, (long) array[i]);
+                }
+            }
+        });
+    }
+    
+    public static Reduction of(long[] array) {
+        return new Reduction(new Source() {
+            @Override
+            public int length() {
+                return array.length;
+            }
+            
+            @Override
+            public <A> void accumulate(Aggregator<A> aggregator, A accumulator, int from, int to) {
+                for (int i = from; i < to; i++) {
+                    aggregator.add(accumulator, array[i]);
+                }
+            }
+        });
+    }
+    
+    public static Reduction of(double[] array) {
+        return new Reduction(new Source() {
+            @Override
+            public int length() {
+                return array.length;
+            }
+            
+            @Override
+            public <A> void accumulate(Aggregator<A> aggregator, A accumulator, int from, int to) {
+                for (int i = from; i < to; i++) {
+                    aggregator.add(accumulator, array[i]);
+                }
+            }
+        });
+    }
+    
+    public <A> A sequential(Aggregator<A> aggregator) {
+        A accumulator = aggregator.create();
+        source.accumulate(aggregator, accumulator, 0, source.length());
+        return accumulator;
+    }
+    
+    public <A> A threadPool(Aggregator<A> aggregator, int threadCount)
+            throws InterruptedException, ExecutionException {
+        ExecutorService executor = Pools.fixed(threadCount);
+        MultithreadedSum.ChunkCursor cursor = new MultithreadedSum.ChunkCursor(
+                source.length(), threadCount, MultithreadedSum.Scheduling.GUIDED);
+        
+        List<Future<A>> futures = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            futures.add(executor.submit(() -> {
+                A accumulator = aggregator.create();
+                int start;
+                while ((start = cursor.claim()) >= 0) {
+                    source.accumulate(aggregator, accumulator, start, cursor.end(start));
+                }
+                return accumulator;
+            }));
+        }
+        
+        A result = aggregator.create();
+        for (Future<A> future : futures) {
+            result = aggregator.merge(result, future.get());
+        }
+        
+        return result;
+    }
+    
+    public <A> A forkJoin(Aggregator<A> aggregator) {
+        return forkJoin(aggregator, Runtime.getRuntime().availableProcessors());
+    }
+    
+    public <A> A forkJoin(Aggregator<A> aggregator, int parallelism) {
+        int threshold = ForkJoinSum.balancedThreshold(source.length(), parallelism, MIN_LEAF);
+        return Pools.forkJoin(parallelism)
+                .invoke(new ReduceTask<>(source, aggregator, 0, source.length(), threshold));
+    }
+    
+    interface Source {
+        int length();
+        
+        <A> void accumulate(Aggregator<A> aggregator, A accumulator, int from, int to);
+    }
+    
+    static class ReduceTask<A> extends RecursiveTask<A> {
+        private final Source source;
+        private final Aggregator<A> aggregator;
+        private final int start;
+        private final int end;
+        private final int threshold;
+        
+        ReduceTask(Source source, Aggregator<A> aggregator, int start, int end, int threshold) {
+            this.source = source;
+            this.aggregator = aggregator;
+            this.start = start;
+            this.end = end;
+            this.threshold = threshold;
+        }
+        
+        @Override
+        protected A compute() {
+            int length = end - start;
+            
+            if (length <= threshold) {
+                A accumulator = aggregator.create();
+                source.accumulate(aggregator, accumulator, start, end);
+                return accumulator;
+            }
+            
+            int mid = start + length / 2;
+            
+            ReduceTask<A> leftTask = new ReduceTask<>(source, aggregator, start, mid, threshold);
+            ReduceTask<A> rightTask = new ReduceTask<>(source, aggregator, mid, end, threshold);
+            
+            leftTask.fork();
+            
+            A rightResult = rightTask.compute();
+            
+            A leftResult = leftTask.join();
+            
+            return aggregator.merge(leftResult, rightResult);
+        }
+    }
+}
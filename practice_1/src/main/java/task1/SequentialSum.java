@@ -1,15 +1,19 @@
 package main.java.task1;
 
-public class SequentialSum {
+public class SequentialSum implements SumEngine {
     
     public static long calculate(int[] array) {
+        return calculate(array, Workload.getMode(), Workload.isVerbose());
+    }
+    
+    public static long calculate(int[] array, Workload.Mode mode, boolean verbose) {
         long sum = 0;
         
         for (int i = 0; i < array.length; i++) {
             sum += array[i];
-            simulateWork();
+            simulateWork(mode, array[i]);
             
-            if ((i + 1) % 1000 == 0) {
+            if ((i + 1) % 1000 == 0 && verbose) {
                 System.out.println("  Обработано элементов: " + (i + 1) + "/" + array.length);
             }
         }
@@ -17,9 +21,24 @@ public class SequentialSum {
         return sum;
     }
     
-    private static void simulateWork() {
+    @Override
+    public String name() {
+        return "Последовательная";
+    }
+    
+    @Override
+    public int parallelism() {
+        return 1;
+    }
+    
+    @Override
+    public long sum(int[] array, Workload.Mode mode, boolean verbose) {
+        return calculate(array, mode, verbose);
+    }
+    
+    private static void simulateWork(Workload.Mode mode, int value) {
         try {
-            Thread.sleep(1);
+            Workload.perform(mode, value);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             System.err.println("Поток был прерван");
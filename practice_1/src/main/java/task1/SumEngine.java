@@ -0,0 +1,20 @@
+package main.java.task1;
+
+import java.util.concurrent.ExecutionException;
+
+// Общий вид реализаций суммирования для SumRouter. parallelism - сколько элементов
+// движок может обрабатывать одновременно, если работа над элементом блокирующая
+public interface SumEngine {
+    
+    String name();
+    
+    int parallelism();
+    
+    long sum(int[] array, Workload.Mode mode, boolean verbose) throws InterruptedException, ExecutionException;
+    
+    // Режим нагрузки и вывод хода работы передаются явно, чтобы SumRouter мог
+    // калибровать движки без нагрузки, не меняя общие настройки Workload
+    default long sum(int[] array) throws InterruptedException, ExecutionException {
+        return sum(array, Workload.getMode(), Workload.isVerbose());
+    }
+}
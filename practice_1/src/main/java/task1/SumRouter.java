@@ -0,0 +1,228 @@
+package main.java.task1;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+// Выбор реализации по размеру массива и стоимости работы над элементом. Калибровка
+// измеряет для каждого движка постоянные накладные расходы и время на элемент без
+// нагрузки; стоимость нагрузки замеряется на нескольких элементах и делится на число
+// элементов, которые движок обрабатывает одновременно
+public final class SumRouter implements SumEngine {
+    
+    private static final int[] CALIBRATION_SIZES = {1 << 8, 1 << 12, 1 << 16, 1 << 20, 1 << 22};
+    private static final int CALIBRATION_ROUNDS = 5;
+    private static final int PROBE_ELEMENTS = 4;
+    private static final int MAX_CROSSOVER_SHIFT = 30;
+    
+    private static volatile SumRouter shared;
+    private static volatile long calibrationSink;
+    
+    private final List<Profile> profiles;
+    private final int cores = Runtime.getRuntime().availableProcessors();
+    private final Map<Workload.Mode, WorkCost> cachedCosts = new ConcurrentHashMap<>();
+    
+    private SumRouter(List<Profile> profiles) {
+        this.profiles = profiles;
+    }
+    
+    public static SumRouter shared() throws InterruptedException, ExecutionException {
+        SumRouter router = shared;
+        if (router == null) {
+            synchronized (SumRouter.class) {
+                router = shared;
+                if (router == null) {
+                    router = calibrate(defaultEngines());
+                    shared = router;
+                }
+            }
+        }
+        return router;
+    }
+    
+    public static List<SumEngine> defaultEngines() {
+        return List.of(new SequentialSum(), new VectorSum(), new MultithreadedSum(),
+                new ForkJoinSum(), new VirtualThreadSum());
+    }
+    
+    // Движки калибруются в режиме NONE без вывода, общие настройки Workload не трогаются
+    public static SumRouter calibrate(List<? extends SumEngine> engines)
+            throws InterruptedException, ExecutionException {
+        if (engines.isEmpty()) {
+            throw new IllegalArgumentException("Не задано ни одной реализации");
+        }
+        
+        int largest = CALIBRATION_SIZES[CALIBRATION_SIZES.length - 1];
+        Random random = new Random(42);
+        int[] sample = new int[largest];
+        for (int i = 0; i < largest; i++) {
+            sample[i] = random.nextInt(100) + 1;
+        }
+        
+        List<Profile> profiles = new ArrayList<>();
+        for (SumEngine engine : engines) {
+            calibrationSink = engine.sum(sample, Workload.Mode.NONE, false);
+            
+            long[] best = new long[CALIBRATION_SIZES.length];
+            for (int s = 0; s < CALIBRATION_SIZES.length; s++) {
+                int[] array = Arrays.copyOf(sample, CALIBRATION_SIZES[s]);
+                best[s] = Long.MAX_VALUE;
+                for (int round = 0; round < CALIBRATION_ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    calibrationSink = engine.sum(array, Workload.Mode.NONE, false);
+                    best[s] = Math.min(best[s], System.nanoTime() - start);
+                }
+            }
+            
+            int last = CALIBRATION_SIZES.length - 1;
+            double perElement = Math.max(0, (double) (best[last] - best[0])
+                    / (CALIBRATION_SIZES[last] - CALIBRATION_SIZES[0]));
+            double overhead = Math.max(0, best[0] - perElement * CALIBRATION_SIZES[0]);
+            profiles.add(new Profile(engine, overhead, perElement));
+        }
+        
+        return new SumRouter(profiles);
+    }
+    
+    @Override
+    public String name() {
+        return "Автоматический выбор";
+    }
+    
+    @Override
+    public int parallelism() {
+        int parallelism = 1;
+        for (Profile profile : profiles) {
+            parallelism = Math.max(parallelism, profile.engine.parallelism());
+        }
+        return parallelism;
+    }
+    
+    @Override
+    public long sum(int[] array, Workload.Mode mode, boolean verbose)
+            throws InterruptedException, ExecutionException {
+        SumEngine engine = choose(array, mode);
+        if (verbose) {
+            System.out.println("  Выбрана реализация: " + engine.name());
+        }
+        return engine.sum(array, mode, verbose);
+    }
+    
+    public SumEngine choose(int[] array) throws InterruptedException {
+        return choose(array, Workload.getMode());
+    }
+    
+    public SumEngine choose(int[] array, Workload.Mode mode) throws InterruptedException {
+        WorkCost cost = workCost(array, mode);
+        return choose(array.length, cost.nanos, cost.cpuShare);
+    }
+    
+    // cpuShare - доля работы над элементом, которая занимает процессор, а не ожидание
+    public SumEngine choose(int length, double workNanos, double cpuShare) {
+        Profile best = profiles.get(0);
+        for (Profile profile : profiles) {
+            if (profile.estimate(length, workNanos, cpuShare, cores)
+                    < best.estimate(length, workNanos, cpuShare, cores)) {
+                best = profile;
+            }
+        }
+        return best.engine;
+    }
+    
+    public void print() {
+        System.out.println("  Калибровка (накладные расходы, время на элемент без нагрузки):");
+        for (Profile profile : profiles) {
+            System.out.println(String.format("    %s: %.1f мкс, %.3f нс",
+                    profile.engine.name(), profile.overheadNanos / 1000, profile.nanosPerElement));
+        }
+        printCrossovers(0, 1);
+    }
+    
+    public void printCrossovers(double workNanos, double cpuShare) {
+        System.out.println(String.format("  Точки переключения при нагрузке %.0f нс на элемент:", workNanos));
+        SumEngine previous = null;
+        for (int shift = 0; shift <= MAX_CROSSOVER_SHIFT; shift++) {
+            int length = 1 << shift;
+            SumEngine engine = choose(length, workNanos, cpuShare);
+            if (engine != previous) {
+                System.out.println("    от " + length + " элементов: " + engine.name());
+                previous = engine;
+            }
+        }
+    }
+    
+    // Стоимость SLEEP не зависит от значений, поэтому кэшируется; SPIN замеряется
+    // на каждом массиве
+    private WorkCost workCost(int[] array, Workload.Mode mode) throws InterruptedException {
+        if (mode == Workload.Mode.NONE || array.length == 0) {
+            return WorkCost.NONE;
+        }
+        if (mode == Workload.Mode.SPIN) {
+            return probe(array, mode);
+        }
+        
+        WorkCost cost = cachedCosts.get(mode);
+        if (cost == null) {
+            cost = probe(array, mode);
+            cachedCosts.put(mode, cost);
+        }
+        return cost;
+    }
+    
+    private static WorkCost probe(int[] array, Workload.Mode mode) throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean cpuTimeSupported = threads.isCurrentThreadCpuTimeSupported();
+        int count = Math.min(array.length, PROBE_ELEMENTS);
+        int step = array.length / count;
+        
+        long cpuStart = cpuTimeSupported ? threads.getCurrentThreadCpuTime() : 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Workload.perform(mode, array[i * step]);
+        }
+        long wall = System.nanoTime() - start;
+        long cpu = cpuTimeSupported ? threads.getCurrentThreadCpuTime() - cpuStart : wall;
+        
+        double cpuShare = wall == 0 ? 1 : Math.min(1, (double) cpu / wall);
+        return new WorkCost((double) wall / count, cpuShare);
+    }
+    
+    static class Profile {
+        private final SumEngine engine;
+        private final double overheadNanos;
+        private final double nanosPerElement;
+        
+        Profile(SumEngine engine, double overheadNanos, double nanosPerElement) {
+            this.engine = engine;
+            this.overheadNanos = overheadNanos;
+            this.nanosPerElement = nanosPerElement;
+        }
+        
+        // Процессорная часть нагрузки делится не более чем на число ядер,
+        // ожидание - на число одновременно обрабатываемых элементов
+        double estimate(long length, double workNanos, double cpuShare, int cores) {
+            int parallelism = engine.parallelism();
+            double perElementWork = workNanos * (cpuShare / Math.min(parallelism, cores)
+                    + (1 - cpuShare) / parallelism);
+            return overheadNanos + length * (nanosPerElement + perElementWork);
+        }
+    }
+    
+    static class WorkCost {
+        static final WorkCost NONE = new WorkCost(0, 1);
+        
+        private final double nanos;
+        private final double cpuShare;
+        
+        WorkCost(double nanos, double cpuShare) {
+            this.nanos = nanos;
+            this.cpuShare = cpuShare;
+        }
+    }
+}
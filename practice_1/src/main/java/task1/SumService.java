@@ -0,0 +1,216 @@
+package main.java.task1;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Долгоживущий сервис суммирования: один пул на процесс, много одновременных заданий.
+// Задания делятся на части, и рабочие потоки берут по одной части у заданий по кругу,
+// поэтому большое задание не задерживает маленькие, пришедшие после него
+public class SumService implements AutoCloseable {
+    
+    private static final SumService SHARED = new SumService(Runtime.getRuntime().availableProcessors());
+    
+    private final int workerCount;
+    private final ExecutorService pool;
+    private final Queue<Job> runQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger drainers = new AtomicInteger();
+    private final AtomicInteger queuedJobs = new AtomicInteger();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final LongAdder completedJobs = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+    
+    public SumService(int workerCount) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным: " + workerCount);
+        }
+        this.workerCount = workerCount;
+        this.pool = Executors.newFixedThreadPool(workerCount, Pools.daemonThreads("sum-service"));
+    }
+    
+    public static SumService shared() {
+        return SHARED;
+    }
+    
+    public CompletableFuture<Long> submit(int[] array) {
+        Job job = new Job(array, workerCount);
+        if (array.length == 0) {
+            job.result.complete(0L);
+            return job.result;
+        }
+        
+        queuedJobs.incrementAndGet();
+        runQueue.offer(job);
+        tryStartDrainer();
+        
+        return job.result;
+    }
+    
+    public long sum(int[] array) throws InterruptedException, ExecutionException {
+        return submit(array).get();
+    }
+    
+    public Metrics metrics() {
+        return new Metrics(queuedJobs.get(), activeWorkers.get(), workerCount,
+                completedJobs.sum(), totalLatencyNanos.sum(), maxLatencyNanos.get());
+    }
+    
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+    
+    private void tryStartDrainer() {
+        if (acquireDrainer()) {
+            pool.execute(this::drain);
+        }
+    }
+    
+    private void drain() {
+        while (true) {
+            Job job = runQueue.poll();
+            
+            if (job == null) {
+                drainers.decrementAndGet();
+                // Задание могло прийти между poll и уменьшением счетчика
+                if (runQueue.isEmpty() || !acquireDrainer()) {
+                    return;
+                }
+                continue;
+            }
+            
+            // Задание уже завершилось с ошибкой: остальные части не нужны
+            if (job.result.isDone()) {
+                queuedJobs.decrementAndGet();
+                continue;
+            }
+            
+            int start = job.cursor.claim();
+            if (start < 0) {
+                continue;
+            }
+            int end = job.cursor.end(start);
+            
+            if (end < job.array.length) {
+                runQueue.offer(job);
+                // Оставшиеся части может взять еще один поток
+                tryStartDrainer();
+            } else {
+                queuedJobs.decrementAndGet();
+            }
+            
+            activeWorkers.incrementAndGet();
+            try {
+                job.add(MultithreadedSum.sumRange(job.array, start, end), end - start);
+            } catch (RuntimeException | Error e) {
+                if (job.result.completeExceptionally(e) && runQueue.remove(job)) {
+                    queuedJobs.decrementAndGet();
+                }
+            } finally {
+                activeWorkers.decrementAndGet();
+            }
+        }
+    }
+    
+    private boolean acquireDrainer() {
+        while (true) {
+            int current = drainers.get();
+            if (current >= workerCount) {
+                return false;
+            }
+            if (drainers.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    private void finished(Job job) {
+        long latency = System.nanoTime() - job.submittedAt;
+        completedJobs.increment();
+        totalLatencyNanos.add(latency);
+        maxLatencyNanos.accumulate(latency);
+    }
+    
+    private class Job {
+        private final int[] array;
+        private final MultithreadedSum.ChunkCursor cursor;
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong remaining;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+        private final long submittedAt = System.nanoTime();
+        
+        Job(int[] array, int workerCount) {
+            this.array = array;
+            this.cursor = new MultithreadedSum.ChunkCursor(array.length, workerCount,
+                    MultithreadedSum.Scheduling.SELF);
+            this.remaining = new AtomicLong(array.length);
+        }
+        
+        void add(long partialSum, int elements) {
+            sum.add(partialSum);
+            if (remaining.addAndGet(-elements) == 0) {
+                finished(this);
+                result.complete(sum.sum());
+            }
+        }
+    }
+    
+    public static class Metrics {
+        private final int queuedJobs;
+        private final int activeWorkers;
+        private final int workerCount;
+        private final long completedJobs;
+        private final long totalLatencyNanos;
+        private final long maxLatencyNanos;
+        
+        Metrics(int queuedJobs, int activeWorkers, int workerCount, long completedJobs,
+                long totalLatencyNanos, long maxLatencyNanos) {
+            this.queuedJobs = queuedJobs;
+            this.activeWorkers = activeWorkers;
+            this.workerCount = workerCount;
+            this.completedJobs = completedJobs;
+            this.totalLatencyNanos = totalLatencyNanos;
+            this.maxLatencyNanos = maxLatencyNanos;
+        }
+        
+        public int getQueuedJobs() {
+            return queuedJobs;
+        }
+        
+        public int getActiveWorkers() {
+            return activeWorkers;
+        }
+        
+        public int getWorkerCount() {
+            return workerCount;
+        }
+        
+        public long getCompletedJobs() {
+            return completedJobs;
+        }
+        
+        public long getAverageLatencyNanos() {
+            return completedJobs == 0 ? 0 : totalLatencyNanos / completedJobs;
+        }
+        
+        public long getMaxLatencyNanos() {
+            return maxLatencyNanos;
+        }
+        
+        public void print() {
+            System.out.println("  Заданий в очереди: " + queuedJobs);
+            System.out.println("  Занято потоков: " + activeWorkers + "/" + workerCount);
+            System.out.println("  Завершено заданий: " + completedJobs);
+            System.out.printf("  Задержка задания: сред %.1f мс, макс %.1f мс%n",
+                    getAverageLatencyNanos() / 1_000_000.0, maxLatencyNanos / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package main.java.task1;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Сумма текстового файла с числом на каждой строке. Файл делится на части по байтам,
+// каждая часть разбирается прямо из отображенной памяти без String и parseInt,
+// а разобранные числа порциями уходят в VectorSum
+public class TextFileSum {
+    
+    private static final long MAX_CHUNK_BYTES = 16L * 1024 * 1024;
+    private static final long MIN_CHUNK_BYTES = 64L * 1024;
+    private static final int CHUNKS_PER_WORKER = 4;
+    // Самая длинная допустимая строка: знак, 10 цифр, пробелы и \r с запасом
+    private static final int MAX_LINE_BYTES = 64;
+    private static final int BLOCK_SIZE = 8192;
+    
+    public static long calculate(Path file) throws IOException {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long perWorker = channel.size() / ((long) parallelism * CHUNKS_PER_WORKER);
+            long chunkBytes = Math.max(MIN_CHUNK_BYTES, Math.min(MAX_CHUNK_BYTES, perWorker));
+            return calculate(channel, chunkBytes, parallelism);
+        }
+    }
+    
+    public static long calculate(Path file, long chunkBytes, int parallelism) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return calculate(channel, chunkBytes, parallelism);
+        }
+    }
+    
+    private static long calculate(FileChannel channel, long chunkBytes, int parallelism) throws IOException {
+        if (chunkBytes < 1 || chunkBytes > Integer.MAX_VALUE - MAX_LINE_BYTES - 1) {
+            throw new IllegalArgumentException("Недопустимый размер части: " + chunkBytes);
+        }
+        
+        long fileSize = channel.size();
+        long chunkCount = (fileSize + chunkBytes - 1) / chunkBytes;
+        
+        if (Workload.isVerbose()) {
+            System.out.println("  Размер файла: " + fileSize + " байт");
+            System.out.println("  Частей по " + chunkBytes + " байт: " + chunkCount);
+        }
+        
+        ForkJoinPool pool = Pools.forkJoin(parallelism);
+        try {
+            return pool.invoke(new ParseTask(channel, fileSize, chunkBytes, 0, chunkCount));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    public static void write(Path file, int[] array) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            byte[] digits = new byte[MAX_LINE_BYTES];
+            for (int value : array) {
+                if (buffer.remaining() < MAX_LINE_BYTES) {
+                    flush(channel, buffer);
+                }
+                
+                long rest = Math.abs((long) value);
+                int position = digits.length;
+                do {
+                    digits[--position] = (byte) ('0' + rest % 10);
+                    rest /= 10;
+                } while (rest != 0);
+                if (value < 0) {
+                    digits[--position] = '-';
+                }
+                buffer.put(digits, position, digits.length - position).put((byte) '\n');
+            }
+            flush(channel, buffer);
+        }
+    }
+    
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    static class ParseTask extends RecursiveTask<Long> {
+        private final FileChannel channel;
+        private final long fileSize;
+        private final long chunkBytes;
+        private final long fromChunk;
+        private final long toChunk;
+        
+        ParseTask(FileChannel channel, long fileSize, long chunkBytes, long fromChunk, long toChunk) {
+            this.channel = channel;
+            this.fileSize = fileSize;
+            this.chunkBytes = chunkBytes;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+        
+        @Override
+        protected Long compute() {
+            if (toChunk - fromChunk <= 1) {
+                return fromChunk < toChunk ? sumChunk(fromChunk) : 0L;
+            }
+            
+            long mid = fromChunk + (toChunk - fromChunk) / 2;
+            
+            ParseTask leftTask = new ParseTask(channel, fileSize, chunkBytes, fromChunk, mid);
+            ParseTask rightTask = new ParseTask(channel, fileSize, chunkBytes, mid, toChunk);
+            
+            leftTask.fork();
+            
+            long rightResult = rightTask.compute();
+            
+            long leftResult = leftTask.join();
+            
+            return leftResult + rightResult;
+        }
+        
+        // Части принадлежат строки, которые начинаются внутри нее. Начало чужой строки
+        // пропускается, а последняя своя строка дочитывается за границей части
+        private long sumChunk(long chunk) {
+            long start = chunk * chunkBytes;
+            long end = Math.min(fileSize, start + chunkBytes);
+            long mapFrom = Math.max(0, start - 1);
+            long mapTo = Math.min(fileSize, end + MAX_LINE_BYTES);
+            
+            MappedByteBuffer mapped;
+            try {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, mapFrom, mapTo - mapFrom);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            
+            int limit = (int) (mapTo - mapFrom);
+            int ownEnd = (int) (end - mapFrom);
+            int i = (int) (start - mapFrom);
+            
+            if (start > 0 && mapped.get(0) != '\n') {
+                while (i < ownEnd && mapped.get(i) != '\n') {
+                    i++;
+                }
+                i++;
+            }
+            
+            int[] block = new int[BLOCK_SIZE];
+            int count = 0;
+            long sum = 0;
+            
+            while (i < ownEnd) {
+                long value = 0;
+                int digits = 0;
+                boolean negative = false;
+                boolean finished = false;
+                boolean terminated = false;
+                
+                for (; i < limit; i++) {
+                    byte b = mapped.get(i);
+                    if (b >= '0' && b <= '9') {
+                        if (finished) {
+                            throw invalid(mapFrom + i);
+                        }
+                        value = value * 10 + (b - '0');
+                        digits++;
+                        if (value > 1L + Integer.MAX_VALUE) {
+                            throw new IllegalArgumentException("Число вне диапазона int в позиции " + (mapFrom + i));
+                        }
+                    } else if (b == '\n') {
+                        i++;
+                        terminated = true;
+                        break;
+                    } else if (b == '-' && digits == 0 && !negative) {
+                        negative = true;
+                    } else if (b == ' ' || b == '\t' || b == '\r') {
+                        finished = digits > 0 || negative;
+                    } else {
+                        throw invalid(mapFrom + i);
+                    }
+                }
+                
+                if (!terminated && mapTo < fileSize) {
+                    throw new IllegalArgumentException("Слишком длинная строка в позиции " + (mapFrom + i));
+                }
+                if (digits == 0) {
+                    if (negative) {
+                        throw invalid(mapFrom + i - 1);
+                    }
+                    continue;
+                }
+                
+                value = negative ? -value : value;
+                if (value > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Число вне диапазона int в позиции " + (mapFrom + i - 1));
+                }
+                
+                block[count++] = (int) value;
+                if (count == BLOCK_SIZE) {
+                    sum += sumBlock(block, count);
+                    count = 0;
+                }
+            }
+            
+            return sum + sumBlock(block, count);
+        }
+        
+        private static long sumBlock(int[] block, int count) {
+            long sum = VectorSum.sum(block, 0, count);
+            
+            if (Workload.isEnabled()) {
+                for (int i = 0; i < count; i++) {
+                    simulateWork(block[i]);
+                }
+            }
+            
+            return sum;
+        }
+        
+        private static IllegalArgumentException invalid(long position) {
+            return new IllegalArgumentException("Некорректный символ в позиции " + position);
+        }
+        
+        private static void simulateWork(int value) {
+            try {
+                Workload.perform(value);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
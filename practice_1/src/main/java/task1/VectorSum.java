@@ -0,0 +1,78 @@
+package main.java.task1;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Требует --add-modules jdk.incubator.vector при компиляции и запуске
+public class VectorSum implements SumEngine {
+    
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONG_SPECIES =
+            VectorSpecies.of(long.class, INT_SPECIES.vectorShape());
+    
+    @Override
+    public String name() {
+        return "Векторная";
+    }
+    
+    @Override
+    public int parallelism() {
+        return 1;
+    }
+    
+    @Override
+    public long sum(int[] array, Workload.Mode mode, boolean verbose) {
+        return calculate(array, mode, verbose);
+    }
+    
+    public static long calculate(int[] array) {
+        return calculate(array, Workload.getMode(), Workload.isVerbose());
+    }
+    
+    public static long calculate(int[] array, Workload.Mode mode, boolean verbose) {
+        if (verbose) {
+            System.out.println("  Ширина вектора: " + INT_SPECIES.length() + " x int");
+        }
+        
+        long sum = sum(array, 0, array.length);
+        
+        if (mode != Workload.Mode.NONE) {
+            for (int i = 0; i < array.length; i++) {
+                simulateWork(mode, array[i]);
+            }
+        }
+        
+        return sum;
+    }
+    
+    // Каждый int-вектор расширяется в две long-половины, поэтому переполнения нет
+    static long sum(int[] array, int from, int to) {
+        LongVector low = LongVector.zero(LONG_SPECIES);
+        LongVector high = LongVector.zero(LONG_SPECIES);
+        
+        int i = from;
+        int upperBound = from + INT_SPECIES.loopBound(to - from);
+        for (; i < upperBound; i += INT_SPECIES.length()) {
+            IntVector vector = IntVector.fromArray(INT_SPECIES, array, i);
+            low = low.add((LongVector) vector.convertShape(VectorOperators.I2L, LONG_SPECIES, 0));
+            high = high.add((LongVector) vector.convertShape(VectorOperators.I2L, LONG_SPECIES, 1));
+        }
+        
+        long sum = low.add(high).reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            sum += array[i];
+        }
+        
+        return sum;
+    }
+    
+    private static void simulateWork(Workload.Mode mode, int value) {
+        try {
+            Workload.perform(mode, value);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package main.java.task1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+public class VirtualThreadSum implements SumEngine {
+    
+    private static final int DEFAULT_MAX_CONCURRENCY = 1000;
+    private static final int CHUNKS_PER_SLOT = 4;
+    
+    private final int maxConcurrency;
+    
+    public VirtualThreadSum() {
+        this(DEFAULT_MAX_CONCURRENCY);
+    }
+    
+    public VirtualThreadSum(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Ограничение параллелизма должно быть положительным: "
+                    + maxConcurrency);
+        }
+        this.maxConcurrency = maxConcurrency;
+    }
+    
+    @Override
+    public String name() {
+        return "Виртуальные потоки (до " + maxConcurrency + ")";
+    }
+    
+    @Override
+    public int parallelism() {
+        return maxConcurrency;
+    }
+    
+    @Override
+    public long sum(int[] array, Workload.Mode mode, boolean verbose)
+            throws InterruptedException, ExecutionException {
+        return calculate(array, maxConcurrency, mode, verbose);
+    }
+    
+    public static long calculate(int[] array) throws InterruptedException, ExecutionException {
+        return calculate(array, DEFAULT_MAX_CONCURRENCY);
+    }
+    
+    // Ограничение считается в частях, одновременно ожидающих внутри simulateWork:
+    // виртуальный поток в Thread.sleep не занимает поток-носитель
+    public static long calculate(int[] array, int maxConcurrency)
+            throws InterruptedException, ExecutionException {
+        return calculate(array, maxConcurrency, Workload.getMode(), Workload.isVerbose());
+    }
+    
+    public static long calculate(int[] array, int maxConcurrency, Workload.Mode mode, boolean verbose)
+            throws InterruptedException, ExecutionException {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Ограничение параллелизма должно быть положительным: "
+                    + maxConcurrency);
+        }
+        
+        long slots = (long) maxConcurrency * CHUNKS_PER_SLOT;
+        int chunkSize = (int) Math.max(1, (array.length + slots - 1) / slots);
+        
+        if (verbose) {
+            System.out.println("  Одновременно выполняемых частей: до " + maxConcurrency);
+            System.out.println("  Размер части: " + chunkSize);
+        }
+        
+        Semaphore permits = new Semaphore(maxConcurrency);
+        LongAdder total = new LongAdder();
+        List<Future<?>> futures = new ArrayList<>();
+        
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int start = 0; start < array.length; start += chunkSize) {
+                int end = Math.min(array.length, start + chunkSize);
+                
+                permits.acquire();
+                futures.add(executor.submit(new SumTask(array, start, end, mode, total, permits)));
+            }
+        }
+        
+        // Исполнитель уже закрыт, значит все части завершены; get пробрасывает
+        // ошибку части, чтобы не вернуть неполную сумму как верную
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        
+        if (verbose) {
+            System.out.println("  Запущено виртуальных потоков: " + futures.size());
+        }
+        
+        return total.sum();
+    }
+    
+    static class SumTask implements Runnable {
+        private final int[] array;
+        private final int startIndex;
+        private final int endIndex;
+        private final Workload.Mode mode;
+        private final LongAdder total;
+        private final Semaphore permits;
+        
+        SumTask(int[] array, int startIndex, int endIndex, Workload.Mode mode,
+                LongAdder total, Semaphore permits) {
+            this.array = array;
+            this.startIndex = startIndex;
+            this.endIndex = endIndex;
+            this.mode = mode;
+            this.total = total;
+            this.permits = permits;
+        }
+        
+        @Override
+        public void run() {
+            try {
+                long sum = VectorSum.sum(array, startIndex, endIndex);
+                
+                if (mode != Workload.Mode.NONE) {
+                    for (int i = startIndex; i < endIndex; i++) {
+                        simulateWork(array[i]);
+                    }
+                }
+                
+                total.add(sum);
+            } finally {
+                permits.release();
+            }
+        }
+        
+        private void simulateWork(int value) {
+            try {
+                Workload.perform(mode, value);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
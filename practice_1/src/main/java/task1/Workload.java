@@ -0,0 +1,65 @@
+package main.java.task1;
+
+public final class Workload {
+    
+    public enum Mode {
+        SLEEP,
+        SPIN,
+        NONE
+    }
+    
+    // В режиме SPIN стоимость элемента пропорциональна его значению
+    private static final int SPIN_ITERATIONS_PER_UNIT = 64;
+    private static final int MAX_SPIN_UNITS = 1024;
+    
+    private static volatile Mode mode =
+            Mode.valueOf(System.getProperty("task1.workload", Mode.SLEEP.name()));
+    private static volatile boolean verbose = !Boolean.getBoolean("task1.quiet");
+    private static volatile long spinSink;
+    
+    private Workload() {
+    }
+    
+    public static Mode getMode() {
+        return mode;
+    }
+    
+    public static void setMode(Mode newMode) {
+        mode = newMode;
+    }
+    
+    public static boolean isVerbose() {
+        return verbose;
+    }
+    
+    public static void setVerbose(boolean enabled) {
+        verbose = enabled;
+    }
+    
+    static boolean isEnabled() {
+        return mode != Mode.NONE;
+    }
+    
+    static void perform(int value) throws InterruptedException {
+        perform(mode, value);
+    }
+    
+    // Режим передается явно, когда нагрузка вызова отличается от общей настройки
+    static void perform(Mode mode, int value) throws InterruptedException {
+        if (mode == Mode.SLEEP) {
+            Thread.sleep(1);
+        } else if (mode == Mode.SPIN) {
+            spin(Math.min(Math.max(value, 0), MAX_SPIN_UNITS) * SPIN_ITERATIONS_PER_UNIT);
+        }
+    }
+    
+    private static void spin(int iterations) {
+        long x = iterations;
+        for (int i = 0; i < iterations; i++) {
+            x = x * 6364136223846793005L + 1442695040888963407L;
+        }
+        if (x == 0) {
+            spinSink = x;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package main.java.task2;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Пул с фиксированным числом потоков и ограниченной очередью. Место в пуле
+// (поток или позиция в очереди) выдается через семафор; если мест нет, задача
+// отклоняется сразу (REJECT) или после нескольких попыток с растущей паузой (BACKOFF).
+// Паузы BACKOFF выдерживает вызывающий поток (в Task2Main - поток ввода), поэтому
+// политика притормаживает и сам источник запросов на время до maxBackoffMillis.
+// Из очереди первыми берутся задачи с большим приоритетом, при равном - в порядке поступления
+public class BoundedExecutor extends ThreadPoolExecutor {
+    
+    public enum Policy {
+        REJECT,
+        BACKOFF
+    }
+    
+    private static final long INITIAL_BACKOFF_MILLIS = 10;
+    
+    private final Semaphore slots;
+    private final int queueCapacity;
+    private final Policy policy;
+    private final long maxBackoffMillis;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    
+    public BoundedExecutor(int threads, int queueCapacity, Policy policy, long maxBackoffMillis) {
+        super(threads, threads, 0, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>());
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("Размер очереди не может быть отрицательным: " + queueCapacity);
+        }
+        this.slots = new Semaphore(threads + queueCapacity);
+        this.queueCapacity = queueCapacity;
+        this.policy = policy;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+    
+    @Override
+    public void execute(Runnable command) {
+        execute(command, 0);
+    }
+    
+    public void execute(Runnable command, int priority) {
+        if (!acquireSlot()) {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Очередь заполнена (" + queueCapacity + " задач)");
+        }
+        
+        try {
+            super.execute(new PrioritizedTask(command, priority, sequence.getAndIncrement()));
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            rejected.incrementAndGet();
+            throw e;
+        }
+    }
+    
+    private boolean acquireSlot() {
+        if (slots.tryAcquire()) {
+            return true;
+        }
+        if (policy == Policy.REJECT) {
+            return false;
+        }
+        
+        long waited = 0;
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        while (waited < maxBackoffMillis) {
+            long pause = Math.min(backoff, maxBackoffMillis - waited);
+            try {
+                Thread.sleep(pause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            waited += pause;
+            backoff *= 2;
+            
+            if (slots.tryAcquire()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        super.afterExecute(r, t);
+        slots.release();
+    }
+    
+    public int getQueueLength() {
+        return getQueue().size();
+    }
+    
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+    
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+    
+    static class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final Runnable command;
+        private final int priority;
+        private final long sequence;
+        
+        PrioritizedTask(Runnable command, int priority, long sequence) {
+            this.command = command;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+        
+        @Override
+        public void run() {
+            command.run();
+        }
+        
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            if (priority != other.priority) {
+                return Integer.compare(other.priority, priority);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
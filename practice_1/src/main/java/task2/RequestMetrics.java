@@ -0,0 +1,158 @@
+package main.java.task2;
+
+import main.java.common.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Задержки запроса по этапам: ожидание в очереди, вычисление, доставка результата
+// и полное время от приема до вывода, плюс пропускная способность в скользящем окне
+public class RequestMetrics {
+    
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram compute = new LatencyHistogram();
+    private final LatencyHistogram delivery = new LatencyHistogram();
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final LatencyHistogram shared = new LatencyHistogram();
+    private final SlidingWindow completions;
+    
+    public RequestMetrics(int windowSeconds) {
+        this.completions = new SlidingWindow(windowSeconds);
+    }
+    
+    public void recordQueueWait(long nanos) {
+        queueWait.record(nanos);
+    }
+    
+    public void recordCompute(long nanos) {
+        compute.record(nanos);
+    }
+    
+    // Запрос получил результат из кэша или от уже идущего вычисления и сам ничего
+    // не считал: ожидание результата пишется отдельно, чтобы не смешивать его
+    // с настоящими вычислениями
+    public void recordShared(long readyNanos) {
+        shared.record(readyNanos);
+    }
+    
+    public void recordDelivery(long deliveryNanos, long totalNanos) {
+        delivery.record(deliveryNanos);
+        total.record(totalNanos);
+        completions.increment();
+    }
+    
+    public void print(PrintStream out) {
+        out.println("Задержки, мс (p50 / p90 / p99 / max, число запросов):");
+        print(out, "ожидание в очереди", queueWait);
+        print(out, "вычисление", compute);
+        print(out, "готовый результат (кэш, общее вычисление)", shared);
+        print(out, "доставка", delivery);
+        print(out, "всего", total);
+        out.println(String.format("Пропускная способность за %d с: %.2f запросов/с",
+                completions.getSeconds(), completions.getRate()));
+    }
+    
+    private static void print(PrintStream out, String name, LatencyHistogram histogram) {
+        out.println(String.format("  %s: %.1f / %.1f / %.1f / %.1f (%d)", name,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getMax()),
+                histogram.getCount()));
+    }
+    
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+    
+    // Периодически дописывает текущие показатели в файл
+    public ScheduledExecutorService startDump(Path file, long periodSeconds) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> dump(file), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        return scheduler;
+    }
+    
+    private void dump(Path file) {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), true, StandardCharsets.UTF_8)) {
+            out.println("=== " + LocalDateTime.now());
+            print(out);
+        } catch (IOException e) {
+            System.err.println("Ошибка записи метрик: " + e.getMessage());
+        }
+    }
+    
+    // Счетчики по секундам в кольцевом массиве на одну ячейку больше окна. Секунда
+    // ячейки (в старших 32 битах) и счетчик (в младших) лежат в одном слове и меняются
+    // одним CAS, поэтому сброс устаревшей ячейки не теряет и не переносит записи
+    static class SlidingWindow {
+        private static final int COUNT_BITS = 32;
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+        
+        private final int seconds;
+        private final AtomicLongArray cells;
+        private final long origin = System.nanoTime();
+        
+        SlidingWindow(int seconds) {
+            if (seconds < 1) {
+                throw new IllegalArgumentException("Окно должно быть не меньше секунды: " + seconds);
+            }
+            this.seconds = seconds;
+            this.cells = new AtomicLongArray(seconds + 1);
+        }
+        
+        void increment() {
+            long now = currentSecond();
+            int slot = (int) (now % cells.length());
+            while (true) {
+                long cell = cells.get(slot);
+                long stamp = cell >>> COUNT_BITS;
+                // Поток задержался дольше окна: его секунда уже не учитывается
+                if (stamp > now) {
+                    return;
+                }
+                long next = stamp == now ? cell + 1 : (now << COUNT_BITS) | 1;
+                if (cells.compareAndSet(slot, cell, next)) {
+                    return;
+                }
+            }
+        }
+        
+        // Текущая секунда еще не закончилась, поэтому считаются только полные
+        double getRate() {
+            long now = currentSecond();
+            long sum = 0;
+            for (int slot = 0; slot < cells.length(); slot++) {
+                long cell = cells.get(slot);
+                long stamp = cell >>> COUNT_BITS;
+                if (stamp < now && stamp >= now - seconds) {
+                    sum += cell & COUNT_MASK;
+                }
+            }
+            return (double) sum / seconds;
+        }
+        
+        int getSeconds() {
+            return seconds;
+        }
+        
+        // Секунды отсчитываются от создания окна: у nanoTime произвольное начало,
+        // и значение может быть отрицательным
+        private long currentSecond() {
+            return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - origin);
+        }
+    }
+}
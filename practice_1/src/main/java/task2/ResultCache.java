@@ -0,0 +1,96 @@
+package main.java.task2;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+// Кэш готовых результатов с вытеснением давно не использованных. Запросы ключа,
+// который уже считается, получают ту же CompletableFuture, а не запускают
+// вычисление повторно. Ошибки не кэшируются
+public class ResultCache<K, V> {
+    private final int capacity;
+    private final Map<K, V> values;
+    private final Map<K, CompletableFuture<V>> inFlight = new HashMap<>();
+    
+    private long hits;
+    private long misses;
+    private long coalesced;
+    
+    public ResultCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным: " + capacity);
+        }
+        this.capacity = capacity;
+        this.values = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > ResultCache.this.capacity;
+            }
+        };
+    }
+    
+    public CompletableFuture<V> get(K key, Function<K, CompletableFuture<V>> loader) {
+        CompletableFuture<V> result;
+        synchronized (this) {
+            V value = values.get(key);
+            if (value != null) {
+                hits++;
+                return CompletableFuture.completedFuture(value);
+            }
+            
+            CompletableFuture<V> pending = inFlight.get(key);
+            if (pending != null) {
+                coalesced++;
+                return pending;
+            }
+            
+            misses++;
+            result = new CompletableFuture<>();
+            inFlight.put(key, result);
+        }
+        
+        CompletableFuture<V> loaded;
+        try {
+            loaded = loader.apply(key);
+        } catch (RuntimeException e) {
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        
+        loaded.whenComplete((value, error) -> {
+            synchronized (this) {
+                inFlight.remove(key);
+                if (error == null && value != null) {
+                    values.put(key, value);
+                }
+            }
+            if (error == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+        return result;
+    }
+    
+    public synchronized long getHits() {
+        return hits;
+    }
+    
+    public synchronized long getMisses() {
+        return misses;
+    }
+    
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+    
+    public synchronized int size() {
+        return values.size();
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+}
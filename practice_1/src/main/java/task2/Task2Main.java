@@ -1,19 +1,27 @@
 package main.java.task2;
 
 
+import java.nio.file.Path;
 import java.util.Scanner;
 import java.util.concurrent.*;
 import java.util.Random;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class Task2Main {
-    private static final ExecutorService executor = Executors.newCachedThreadPool();
+    private static final BoundedExecutor executor = new BoundedExecutor(
+            Integer.getInteger("task2.threads", 16),
+            Integer.getInteger("task2.queueSize", 64),
+            BoundedExecutor.Policy.valueOf(System.getProperty("task2.policy", "REJECT")),
+            Long.getLong("task2.backoffMillis", 2000));
     private static final Random random = new Random();
     
-    private static final Map<Integer, Future<Integer>> activeTasks = new ConcurrentHashMap<>();
     private static final AtomicInteger requestCounter = new AtomicInteger(0);
+    private static final RequestStats stats = new RequestStats();
+    private static final ResultCache<Integer, Integer> cache =
+            new ResultCache<>(Integer.getInteger("task2.cacheSize", 1000));
+    private static final RequestMetrics metrics =
+            new RequestMetrics(Integer.getInteger("task2.windowSeconds", 10));
     
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
@@ -22,13 +30,15 @@ public class Task2Main {
         System.out.println();
         System.out.println("Команды:");
         System.out.println("  • Введите число для возведения в квадрат");
+        System.out.println("  • '<число> <приоритет>' - запрос с приоритетом (больше - раньше)");
         System.out.println("  • 'status' - показать активные запросы");
         System.out.println("  • 'exit' - выход из программы");
         System.out.println();
         
-        Thread monitor = new Thread(() -> monitorCompletedTasks());
-        monitor.setDaemon(true);
-        monitor.start();
+        String metricsFile = System.getProperty("task2.metricsFile");
+        if (metricsFile != null) {
+            metrics.startDump(Path.of(metricsFile), Long.getLong("task2.metricsPeriod", 10));
+        }
         
         while (true) {
             System.out.print(">>> ");
@@ -44,8 +54,13 @@ public class Task2Main {
             }
             
             try {
-                int number = Integer.parseInt(input);
-                submitRequest(number);
+                String[] parts = input.split("\\s+");
+                if (parts.length > 2) {
+                    throw new NumberFormatException(input);
+                }
+                int number = Integer.parseInt(parts[0]);
+                int priority = parts.length == 2 ? Integer.parseInt(parts[1]) : 0;
+                submitRequest(number, priority);
             } catch (NumberFormatException e) {
                 System.out.println("Ошибка: введите корректное число или команду");
             }
@@ -65,52 +80,132 @@ public class Task2Main {
         System.out.println("Программа завершена.");
     }
     
-    private static void submitRequest(int number) {
+    private static void submitRequest(int number, int priority) {
         int requestId = requestCounter.incrementAndGet();
         
-        Future<Integer> future = executor.submit(new SquareCalculator(number, requestId));
-        activeTasks.put(requestId, future);
-        
         System.out.println("Запрос #" + requestId + " принят: " + number + " обработка...");
+        
+        long submittedAt = System.nanoTime();
+        stats.submitted();
+        // Загрузчик вызывается синхронно и только при промахе кэша
+        AtomicBoolean computed = new AtomicBoolean();
+        cache.get(number, key -> {
+                    computed.set(true);
+                    return calculate(new SquareCalculator(key, requestId), priority);
+                })
+                .whenComplete((result, error) -> deliver(requestId, submittedAt, computed.get(), result, error));
     }
     
-    private static void monitorCompletedTasks() {
-        while (!Thread.currentThread().isInterrupted()) {
+    // При переполнении очереди execute бросает RejectedExecutionException,
+    // и запрос завершается с ошибкой, не занимая поток
+    private static CompletableFuture<Integer> calculate(SquareCalculator calculator, int priority) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        long enqueuedAt = System.nanoTime();
+        executor.execute(() -> {
+            long startedAt = System.nanoTime();
+            metrics.recordQueueWait(startedAt - enqueuedAt);
+            
+            Integer result = null;
+            Exception error = null;
             try {
-                Thread.sleep(100);
-                
-                activeTasks.entrySet().removeIf(entry -> {
-                    if (entry.getValue().isDone()) {
-                        try {
-                            int result = entry.getValue().get();
-                            System.out.println("\nЗапрос #" + entry.getKey() + 
-                                             " завершен. Результат: " + result);
-                            System.out.print(">>> ");
-                        } catch (Exception e) {
-                            System.out.println("\nЗапрос #" + entry.getKey() + 
-                                             " завершен с ошибкой: " + e.getMessage());
-                            System.out.print(">>> ");
-                        }
-                        return true;
-                    }
-                    return false;
-                });
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
+                result = calculator.call();
+            } catch (Exception e) {
+                error = e;
+            }
+            metrics.recordCompute(System.nanoTime() - startedAt);
+            
+            if (error == null) {
+                future.complete(result);
+            } else {
+                future.completeExceptionally(error);
             }
+        }, priority);
+        return future;
+    }
+    
+    // Результат выводится сразу в потоке, который его посчитал. Доставка - это
+    // ожидание вывода и сам вывод; в задержки попадают только успешные запросы
+    private static void deliver(int requestId, long submittedAt, boolean computed,
+                                Integer result, Throwable error) {
+        long readyAt = System.nanoTime();
+        if (!computed) {
+            metrics.recordShared(readyAt - submittedAt);
+        }
+        synchronized (Task2Main.class) {
+            if (error == null) {
+                stats.completed();
+                System.out.println("\nЗапрос #" + requestId + " завершен. Результат: " + result);
+            } else {
+                stats.failed();
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                System.out.println("\nЗапрос #" + requestId + " завершен с ошибкой: " + cause.getMessage());
+            }
+            System.out.print(">>> ");
+        }
+        
+        if (error == null) {
+            long deliveredAt = System.nanoTime();
+            metrics.recordDelivery(deliveredAt - readyAt, deliveredAt - submittedAt);
         }
     }
     
-    private static void showStatus() {
-        if (activeTasks.isEmpty()) {
+    private static synchronized void showStatus() {
+        int active = stats.getActive();
+        if (active == 0) {
             System.out.println("Нет активных запросов");
         } else {
-            System.out.println("Активные запросы:");
-            activeTasks.forEach((id, future) -> {
-                String status = future.isDone() ? "завершен" : "обрабатывается";
-                System.out.println("   • Запрос #" + id + ": " + status);
-            });
+            System.out.println("Обрабатывается запросов: " + active);
+        }
+        System.out.println("Всего принято: " + stats.getSubmitted() + 
+                         ", завершено: " + stats.getCompleted() + 
+                         ", с ошибкой: " + stats.getFailed());
+        System.out.println("Очередь: " + executor.getQueueLength() + "/" + executor.getQueueCapacity() + 
+                         ", занято потоков: " + executor.getActiveCount() + "/" + executor.getMaximumPoolSize() + 
+                         ", отклонено: " + executor.getRejectedCount());
+        System.out.println("Кэш: попаданий " + cache.getHits() + 
+                         ", промахов " + cache.getMisses() + 
+                         ", объединено с текущими " + cache.getCoalesced() + 
+                         ", записей " + cache.size() + "/" + cache.getCapacity());
+        metrics.print(System.out);
+    }
+    
+    // Счетчики обновляются при приеме и завершении запроса, поэтому status
+    // не перебирает запросы
+    static class RequestStats {
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger submitted = new AtomicInteger();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        
+        void submitted() {
+            submitted.incrementAndGet();
+            active.incrementAndGet();
+        }
+        
+        void completed() {
+            completed.incrementAndGet();
+            active.decrementAndGet();
+        }
+        
+        void failed() {
+            failed.incrementAndGet();
+            active.decrementAndGet();
+        }
+        
+        int getActive() {
+            return active.get();
+        }
+        
+        int getSubmitted() {
+            return submitted.get();
+        }
+        
+        int getCompleted() {
+            return completed.get();
+        }
+        
+        int getFailed() {
+            return failed.get();
         }
     }
     
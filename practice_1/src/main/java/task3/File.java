@@ -1,6 +1,7 @@
 package main.java.task3;
 
 
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class File {
@@ -33,12 +34,26 @@ public class File {
     private final FileType type;
     private final int size;
     private final long createdAt;
+    // Время последней постановки в очередь; при возврате в очередь обновляется
+    private volatile long enqueuedAt;
+    private final AtomicInteger requeueCount = new AtomicInteger();
     
     public File(FileType type, int size) {
         this.id = ID_GENERATOR.incrementAndGet();
         this.type = type;
         this.size = size;
         this.createdAt = System.currentTimeMillis();
+        this.enqueuedAt = createdAt;
+    }
+    
+    // Восстановление файла, прочитанного из SpillQueue
+    File(long id, FileType type, int size, long createdAt, long enqueuedAt, int requeueCount) {
+        this.id = id;
+        this.type = type;
+        this.size = size;
+        this.createdAt = createdAt;
+        this.enqueuedAt = enqueuedAt;
+        this.requeueCount.set(requeueCount);
     }
     
     public long getId() {
@@ -57,6 +72,23 @@ public class File {
         return createdAt;
     }
     
+    public long getEnqueuedAt() {
+        return enqueuedAt;
+    }
+    
+    void markEnqueued() {
+        enqueuedAt = System.currentTimeMillis();
+    }
+    
+    void markRequeued() {
+        requeueCount.incrementAndGet();
+        markEnqueued();
+    }
+    
+    public int getRequeueCount() {
+        return requeueCount.get();
+    }
+    
     public int getProcessingTime() {
         return size * 7;
     }
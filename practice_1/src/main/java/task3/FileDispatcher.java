@@ -0,0 +1,230 @@
+package main.java.task3;
+
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Отдельная очередь для каждого типа файлов: обработчик берет только из своей
+// очереди и не возвращает чужие файлы. Общий лимит на число файлов во всех
+// очередях держит семафор. В каждую очередь пишет только генератор, поэтому
+// подходит и SpmcRingBuffer. Файлы, возвращенные обработчиками, лежат в отдельной
+// очереди вне лимита: их место уже было занято, а писать в основную очередь
+// второму потоку нельзя. Если задан каталог для переполнения, файлы сверх лимита
+// не отклоняются, а дописываются в SpillQueue своего типа на диске. Порядок очереди
+// в памяти (например, SJF) действует только внутри нее: диск всегда читается по
+// порядку записи и только когда очередь в памяти пуста
+public class FileDispatcher implements AutoCloseable {
+    // Как часто ждущий poll заново проверяет возвращенные файлы и диск: они
+    // приходят мимо очереди в памяти и не будят ее
+    private static final long RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    
+    private final Map<File.FileType, BlockingQueue<File>> queues = new EnumMap<>(File.FileType.class);
+    private final Map<File.FileType, BlockingQueue<File>> returned = new EnumMap<>(File.FileType.class);
+    private final Map<File.FileType, SpillQueue> spills = new EnumMap<>(File.FileType.class);
+    private final Map<File.FileType, AtomicLong> accepted = new EnumMap<>(File.FileType.class);
+    private final Semaphore freeSlots;
+    private final int capacity;
+    
+    public FileDispatcher(int capacity) {
+        this(capacity, LinkedBlockingQueue::new);
+    }
+    
+    // Каждая очередь должна вмещать capacity файлов: лимит общий на все типы
+    public FileDispatcher(int capacity, Supplier<BlockingQueue<File>> queueFactory) {
+        this(capacity, queueFactory, null);
+    }
+    
+    // spillDirectory должен существовать; null - без переполнения на диск
+    public FileDispatcher(int capacity, Supplier<BlockingQueue<File>> queueFactory, Path spillDirectory) {
+        this.capacity = capacity;
+        this.freeSlots = new Semaphore(capacity);
+        for (File.FileType type : File.FileType.values()) {
+            queues.put(type, queueFactory.get());
+            returned.put(type, new LinkedBlockingQueue<>());
+            if (spillDirectory != null) {
+                spills.put(type, new SpillQueue(spillDirectory, type.name().toLowerCase()));
+            }
+            accepted.put(type, new AtomicLong());
+        }
+    }
+    
+    // С переполнением на диск файл туда уходит сразу, без ожидания места в памяти.
+    // Пока на диске остаются файлы этого типа, новые пишутся следом за ними:
+    // иначе они обогнали бы более старые
+    public boolean offer(File file, long timeout, TimeUnit unit) throws InterruptedException {
+        SpillQueue spill = spills.get(file.getType());
+        file.markEnqueued();
+        
+        if (spill == null) {
+            if (!freeSlots.tryAcquire(timeout, unit)) {
+                return false;
+            }
+            queues.get(file.getType()).add(file);
+        } else if (spill.isEmpty() && freeSlots.tryAcquire()) {
+            queues.get(file.getType()).add(file);
+        } else {
+            try {
+                spill.add(file);
+            } catch (IOException e) {
+                System.err.println("Ошибка записи файла на диск: " + e.getMessage());
+                return false;
+            }
+        }
+        accepted.get(file.getType()).incrementAndGet();
+        return true;
+    }
+    
+    // Возвращает файл, обработку которого прервали, в начало очереди его типа
+    public void requeue(File file) {
+        file.markRequeued();
+        returned.get(file.getType()).add(file);
+    }
+    
+    public File poll(File.FileType type, long timeout, TimeUnit unit) throws InterruptedException {
+        BlockingQueue<File> queue = queues.get(type);
+        SpillQueue spill = spills.get(type);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        
+        while (true) {
+            File file = returned.get(type).poll();
+            if (file != null) {
+                return file;
+            }
+            
+            // Файлы в памяти старше файлов на диске, поэтому сначала берется память
+            file = queue.poll();
+            if (file == null && spill != null) {
+                file = spill.poll();
+                if (file != null) {
+                    return file;
+                }
+            }
+            
+            if (file == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                file = queue.poll(Math.min(remaining, RECHECK_NANOS), TimeUnit.NANOSECONDS);
+            }
+            if (file != null) {
+                freeSlots.release();
+                return file;
+            }
+        }
+    }
+    
+    // Пакет до maxFiles файлов одного типа: первый файл ждется до timeout, затем
+    // все готовое забирается разом, а недобранный пакет ждет новых файлов еще linger
+    public List<File> pollBatch(File.FileType type, int maxFiles, long timeout, long linger, TimeUnit unit)
+            throws InterruptedException {
+        List<File> batch = new ArrayList<>(maxFiles);
+        File first = poll(type, timeout, unit);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        
+        long deadline = System.nanoTime() + unit.toNanos(linger);
+        try {
+            while (drainTo(type, batch, maxFiles) < maxFiles) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                File file = poll(type, remaining, TimeUnit.NANOSECONDS);
+                if (file == null) {
+                    break;
+                }
+                batch.add(file);
+            }
+        } catch (InterruptedException e) {
+            // Уже забранные файлы не должны пропасть вместе с прерванным обработчиком
+            for (File file : batch) {
+                requeue(file);
+            }
+            throw e;
+        }
+        return batch;
+    }
+    
+    // Порядок тот же, что и в poll: возвращенные, память, диск
+    private int drainTo(File.FileType type, List<File> batch, int maxFiles) {
+        returned.get(type).drainTo(batch, maxFiles - batch.size());
+        
+        int drained = queues.get(type).drainTo(batch, maxFiles - batch.size());
+        if (drained > 0) {
+            freeSlots.release(drained);
+        }
+        
+        SpillQueue spill = spills.get(type);
+        if (spill != null && queues.get(type).isEmpty()) {
+            File file;
+            while (batch.size() < maxFiles && (file = spill.poll()) != null) {
+                batch.add(file);
+            }
+        }
+        return batch.size();
+    }
+    
+    public int size() {
+        int size = 0;
+        for (File.FileType type : File.FileType.values()) {
+            size += size(type);
+        }
+        return size;
+    }
+    
+    // Вместе с файлами на диске
+    public int size(File.FileType type) {
+        return queues.get(type).size() + returned.get(type).size() + getSpilledSize(type);
+    }
+    
+    public int getSpilledSize() {
+        int size = 0;
+        for (File.FileType type : File.FileType.values()) {
+            size += getSpilledSize(type);
+        }
+        return size;
+    }
+    
+    public int getSpilledSize(File.FileType type) {
+        SpillQueue spill = spills.get(type);
+        return spill == null ? 0 : spill.size();
+    }
+    
+    // Сколько файлов за все время ушло на диск
+    public long getSpilledCount() {
+        long count = 0;
+        for (SpillQueue spill : spills.values()) {
+            count += spill.getSpilledCount();
+        }
+        return count;
+    }
+    
+    public long getAcceptedCount(File.FileType type) {
+        return accepted.get(type).get();
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    // Удаляет сегменты на диске; оставшиеся в них файлы теряются
+    @Override
+    public void close() {
+        for (SpillQueue spill : spills.values()) {
+            spill.close();
+        }
+    }
+}
@@ -2,20 +2,19 @@ package main.java.task3;
 
 
 import java.util.Random;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class FileGenerator implements Runnable {
-    private final BlockingQueue<File> queue;
+    private final FileDispatcher dispatcher;
     private final Random random = new Random();
     private final AtomicBoolean running = new AtomicBoolean(true);
     private final AtomicInteger generatedCount = new AtomicInteger(0);
     private final AtomicInteger rejectedCount = new AtomicInteger(0);
     
-    public FileGenerator(BlockingQueue<File> queue) {
-        this.queue = queue;
+    public FileGenerator(FileDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
     }
     
     @Override
@@ -26,12 +25,14 @@ public class FileGenerator implements Runnable {
             try {
                 File file = generateRandomFile();
                 
-                boolean added = queue.offer(file, 100, TimeUnit.MILLISECONDS);
+                boolean added = dispatcher.offer(file, 100, TimeUnit.MILLISECONDS);
                 
                 if (added) {
                     generatedCount.incrementAndGet();
+                    int spilled = dispatcher.getSpilledSize();
                     System.out.println("Сгенерирован: " + file + 
-                                     " | Очередь: " + queue.size() + "/5");
+                                     " | Очередь: " + (dispatcher.size() - spilled) + "/" + dispatcher.getCapacity() +
+                                     (spilled > 0 ? ", на диске: " + spilled : ""));
                 } else {
                     rejectedCount.incrementAndGet();
                     System.out.println("Очередь полна. Файл отклонен: " + file);
@@ -0,0 +1,324 @@
+package main.java.task3;
+
+
+import main.java.common.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Метрики по типам файлов и по обработчикам: ожидание в очереди, время обработки,
+// возвраты в очередь, заполненность очередей и пропускная способность. Значения
+// копятся в гистограммах; периодически срез дописывается в файл - CSV или, если
+// имя файла оканчивается на .json, JSON по объекту на строку
+public class FileMetrics {
+    private static final long SAMPLE_PERIOD_MILLIS = 100;
+    
+    private final Map<File.FileType, TypeMetrics> types = new EnumMap<>(File.FileType.class);
+    private final Map<String, ProcessorMetrics> processors = new ConcurrentHashMap<>();
+    private final Map<Integer, BatchMetrics> batches = new ConcurrentHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+    // Ожидания за текущий интервал замера, см. startWindow
+    private volatile LatencyHistogram window;
+    private ScheduledExecutorService scheduler;
+    private Path exportFile;
+    private boolean json;
+    
+    public FileMetrics() {
+        for (File.FileType type : File.FileType.values()) {
+            types.put(type, new TypeMetrics());
+        }
+    }
+    
+    public void recordDequeue(File file) {
+        long wait = System.currentTimeMillis() - file.getEnqueuedAt();
+        types.get(file.getType()).wait.record(wait);
+        LatencyHistogram current = window;
+        if (current != null) {
+            current.record(wait);
+        }
+    }
+    
+    // Начинает новый интервал: ожидания в очереди с этого момента дополнительно
+    // пишутся в возвращаемую гистограмму
+    public LatencyHistogram startWindow() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        window = histogram;
+        return histogram;
+    }
+    
+    public double getMeanServiceMillis() {
+        double total = 0;
+        long count = 0;
+        for (TypeMetrics metrics : types.values()) {
+            total += metrics.service.getMean() * metrics.service.getCount();
+            count += metrics.service.getCount();
+        }
+        return count == 0 ? 0 : total / count;
+    }
+    
+    public long getProcessedCount() {
+        long processed = 0;
+        for (TypeMetrics metrics : types.values()) {
+            processed += metrics.processed.sum();
+        }
+        return processed;
+    }
+    
+    public void recordService(String processor, File file, long millis) {
+        TypeMetrics type = types.get(file.getType());
+        type.service.record(millis);
+        type.processed.increment();
+        
+        ProcessorMetrics metrics = processors.computeIfAbsent(processor, name -> new ProcessorMetrics(file.getType()));
+        metrics.service.record(millis);
+        metrics.processed.increment();
+    }
+    
+    // Пакет целиком: сколько он занял обработчик и сколько файлы пробыли в системе
+    public void recordBatch(List<File> batch, long serviceMillis) {
+        long now = System.currentTimeMillis();
+        BatchMetrics metrics = batches.computeIfAbsent(batch.size(), size -> new BatchMetrics());
+        metrics.batches.increment();
+        metrics.busyMillis.add(serviceMillis);
+        for (File file : batch) {
+            metrics.systemTime.record(now - file.getCreatedAt());
+        }
+    }
+    
+    public void recordRequeue(File file) {
+        types.get(file.getType()).requeues.increment();
+    }
+    
+    // Запускает замер заполненности очередей и, если задан файл, выгрузку срезов
+    public synchronized void start(FileDispatcher dispatcher, Path exportFile, long exportPeriodMillis) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "FileMetrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> sampleOccupancy(dispatcher),
+                SAMPLE_PERIOD_MILLIS, SAMPLE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        
+        this.exportFile = exportFile;
+        if (exportFile != null) {
+            json = exportFile.toString().endsWith(".json");
+            try {
+                Files.deleteIfExists(exportFile);
+                if (!json) {
+                    append(exportFile, csvHeader());
+                }
+            } catch (IOException e) {
+                System.err.println("Ошибка записи метрик: " + e.getMessage());
+            }
+            scheduler.scheduleAtFixedRate(this::export,
+                    exportPeriodMillis, exportPeriodMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    // Останавливает замеры и дописывает последний срез
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (exportFile != null) {
+            export();
+        }
+    }
+    
+    private void sampleOccupancy(FileDispatcher dispatcher) {
+        for (File.FileType type : File.FileType.values()) {
+            types.get(type).occupancy.record(dispatcher.size(type));
+        }
+    }
+    
+    private void export() {
+        long now = System.currentTimeMillis();
+        try {
+            append(exportFile, json ? jsonSnapshot(now) : csvSnapshot(now));
+        } catch (IOException e) {
+            System.err.println("Ошибка записи метрик: " + e.getMessage());
+        }
+    }
+    
+    private static void append(Path file, String text) throws IOException {
+        Files.writeString(file, text, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+    
+    private static String csvHeader() {
+        return "time_ms,scope,name,processed,throughput_per_s,requeues,"
+                + "wait_p50,wait_p95,wait_p99,wait_max,"
+                + "service_p50,service_p95,service_p99,service_max,"
+                + "occupancy_p50,occupancy_max\n";
+    }
+    
+    // Пропускная способность считается за время с прошлой выгрузки
+    private String csvSnapshot(long now) {
+        StringBuilder out = new StringBuilder();
+        long elapsed = now - startedAt;
+        for (Map.Entry<File.FileType, TypeMetrics> entry : types.entrySet()) {
+            TypeMetrics metrics = entry.getValue();
+            out.append(String.format(Locale.ROOT, "%d,type,%s,%d,%.3f,%d,%s,%s,%d,%d%n",
+                    elapsed, entry.getKey(), metrics.processed.sum(), metrics.throughput(now),
+                    metrics.requeues.sum(), csv(metrics.wait), csv(metrics.service),
+                    metrics.occupancy.getValueAtPercentile(50), metrics.occupancy.getMax()));
+        }
+        for (Map.Entry<String, ProcessorMetrics> entry : sortedProcessors()) {
+            ProcessorMetrics metrics = entry.getValue();
+            out.append(String.format(Locale.ROOT, "%d,processor,%s,%d,%.3f,,,,,,%s,,%n",
+                    elapsed, entry.getKey(), metrics.processed.sum(), metrics.throughput(now),
+                    csv(metrics.service)));
+        }
+        return out.toString();
+    }
+    
+    private static String csv(LatencyHistogram histogram) {
+        return histogram.getValueAtPercentile(50) + "," + histogram.getValueAtPercentile(95) + ","
+                + histogram.getValueAtPercentile(99) + "," + histogram.getMax();
+    }
+    
+    private String jsonSnapshot(long now) {
+        List<String> typeEntries = new ArrayList<>();
+        for (Map.Entry<File.FileType, TypeMetrics> entry : types.entrySet()) {
+            TypeMetrics metrics = entry.getValue();
+            typeEntries.add(String.format(Locale.ROOT,
+                    "{\"type\":\"%s\",\"processed\":%d,\"throughputPerSecond\":%.3f,\"requeues\":%d,"
+                            + "\"waitMs\":%s,\"serviceMs\":%s,\"occupancy\":%s}",
+                    entry.getKey(), metrics.processed.sum(), metrics.throughput(now), metrics.requeues.sum(),
+                    json(metrics.wait), json(metrics.service), json(metrics.occupancy)));
+        }
+        List<String> processorEntries = new ArrayList<>();
+        for (Map.Entry<String, ProcessorMetrics> entry : sortedProcessors()) {
+            ProcessorMetrics metrics = entry.getValue();
+            processorEntries.add(String.format(Locale.ROOT,
+                    "{\"name\":\"%s\",\"type\":\"%s\",\"processed\":%d,\"throughputPerSecond\":%.3f,"
+                            + "\"serviceMs\":%s}",
+                    escape(entry.getKey()), metrics.type, metrics.processed.sum(), metrics.throughput(now),
+                    json(metrics.service)));
+        }
+        return String.format("{\"timeMs\":%d,\"types\":[%s],\"processors\":[%s]}%n", now - startedAt,
+                String.join(",", typeEntries), String.join(",", processorEntries));
+    }
+    
+    // Имена обработчиков и стадий приходят в том числе из task3.stages, поэтому
+    // кавычки, обратная косая черта и управляющие символы экранируются
+    private static String escape(String value) {
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+    
+    private static String json(LatencyHistogram histogram) {
+        return String.format(Locale.ROOT, "{\"count\":%d,\"mean\":%.1f,\"p50\":%d,\"p95\":%d,\"p99\":%d,\"max\":%d}",
+                histogram.getCount(), histogram.getMean(), histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(95), histogram.getValueAtPercentile(99), histogram.getMax());
+    }
+    
+    private List<Map.Entry<String, ProcessorMetrics>> sortedProcessors() {
+        List<Map.Entry<String, ProcessorMetrics>> entries = new ArrayList<>(processors.entrySet());
+        entries.sort(Map.Entry.comparingByKey());
+        return entries;
+    }
+    
+    public void print() {
+        System.out.println("Метрики по типам (мс: p50 / p95 / p99 / max):");
+        long elapsed = Math.max(1, System.currentTimeMillis() - startedAt);
+        for (Map.Entry<File.FileType, TypeMetrics> entry : types.entrySet()) {
+            TypeMetrics metrics = entry.getValue();
+            System.out.printf("  %s: обработано %d (%.2f файлов/с), возвратов %d%n", entry.getKey(),
+                    metrics.processed.sum(), metrics.processed.sum() * 1000.0 / elapsed, metrics.requeues.sum());
+            System.out.println("     ожидание: " + text(metrics.wait));
+            System.out.println("     обработка: " + text(metrics.service));
+            System.out.println("     файлов в очереди: p50 " + metrics.occupancy.getValueAtPercentile(50) +
+                             ", макс. " + metrics.occupancy.getMax());
+        }
+        
+        if (batches.keySet().stream().anyMatch(size -> size > 1)) {
+            printBatches();
+        }
+    }
+    
+    // Пропускная способность - файлов на секунду занятости обработчика,
+    // задержка - время в системе файлов из пакетов этого размера
+    private void printBatches() {
+        System.out.println("Пакеты (время в системе, мс: p50 / p95 / p99 / max):");
+        for (Map.Entry<Integer, BatchMetrics> entry : new TreeMap<>(batches).entrySet()) {
+            BatchMetrics metrics = entry.getValue();
+            long files = metrics.batches.sum() * entry.getKey();
+            System.out.printf("  по %d: пакетов %d, файлов %d, %.2f файлов/с работы, %s%n", entry.getKey(),
+                    metrics.batches.sum(), files, files * 1000.0 / Math.max(1, metrics.busyMillis.sum()),
+                    text(metrics.systemTime));
+        }
+    }
+    
+    private static String text(LatencyHistogram histogram) {
+        return histogram.getValueAtPercentile(50) + " / " + histogram.getValueAtPercentile(95) + " / "
+                + histogram.getValueAtPercentile(99) + " / " + histogram.getMax();
+    }
+    
+    // Счетчик с запоминанием значения на прошлой выгрузке
+    private static class Rate {
+        final LongAdder processed = new LongAdder();
+        private long lastProcessed;
+        private long lastTime = System.currentTimeMillis();
+        
+        synchronized double throughput(long now) {
+            long current = processed.sum();
+            double rate = (current - lastProcessed) * 1000.0 / Math.max(1, now - lastTime);
+            lastProcessed = current;
+            lastTime = now;
+            return rate;
+        }
+    }
+    
+    private static class TypeMetrics extends Rate {
+        final LatencyHistogram wait = new LatencyHistogram();
+        final LatencyHistogram service = new LatencyHistogram();
+        final LatencyHistogram occupancy = new LatencyHistogram();
+        final LongAdder requeues = new LongAdder();
+    }
+    
+    private static class BatchMetrics {
+        final LongAdder batches = new LongAdder();
+        final LongAdder busyMillis = new LongAdder();
+        final LatencyHistogram systemTime = new LatencyHistogram();
+    }
+    
+    private static class ProcessorMetrics extends Rate {
+        final File.FileType type;
+        final LatencyHistogram service = new LatencyHistogram();
+        
+        ProcessorMetrics(File.FileType type) {
+            this.type = type;
+        }
+    }
+}
@@ -1,23 +1,37 @@
 package main.java.task3;
 
 
-import java.util.concurrent.BlockingQueue;
+import main.java.common.LatencyHistogram;
+
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class FileProcessor implements Runnable {
     private final String name;
     private final File.FileType supportedType;
-    private final BlockingQueue<File> queue;
+    private final FileDispatcher dispatcher;
+    private final FileMetrics metrics;
+    private final Batching batching;
     private final AtomicBoolean running = new AtomicBoolean(true);
     private final AtomicInteger processedCount = new AtomicInteger(0);
-    private final AtomicInteger skippedCount = new AtomicInteger(0);
+    private final AtomicLong totalQueueTime = new AtomicLong(0);
+    private final AtomicLong totalServiceTime = new AtomicLong(0);
+    private final LatencyHistogram systemTimes = new LatencyHistogram();
+    
+    public FileProcessor(String name, File.FileType supportedType, FileDispatcher dispatcher) {
+        this(name, supportedType, dispatcher, new FileMetrics(), Batching.SINGLE);
+    }
     
-    public FileProcessor(String name, File.FileType supportedType, BlockingQueue<File> queue) {
+    public FileProcessor(String name, File.FileType supportedType, FileDispatcher dispatcher,
+                         FileMetrics metrics, Batching batching) {
         this.name = name;
         this.supportedType = supportedType;
-        this.queue = queue;
+        this.dispatcher = dispatcher;
+        this.metrics = metrics;
+        this.batching = batching;
     }
     
     @Override
@@ -26,28 +40,22 @@ public class FileProcessor implements Runnable {
         
         while (running.get() && !Thread.currentThread().isInterrupted()) {
             try {
-                File file = queue.poll(500, TimeUnit.MILLISECONDS);
+                List<File> batch = dispatcher.pollBatch(supportedType, batching.maxFiles, 500,
+                                                        batching.lingerMillis, TimeUnit.MILLISECONDS);
                 
-                if (file == null) {
+                if (batch.isEmpty()) {
                     continue;
                 }
                 
-                if (file.getType() == supportedType) {
-                    processFile(file);
-                    processedCount.incrementAndGet();
+                for (File file : batch) {
+                    metrics.recordDequeue(file);
+                }
+                if (batch.size() == 1) {
+                    processFile(batch.get(0));
                 } else {
-                    boolean returned = queue.offer(file, 100, TimeUnit.MILLISECONDS);
-                    if (returned) {
-                        skippedCount.incrementAndGet();
-                        System.out.println(name + " вернул " + file + 
-                                         " (не поддерживает " + file.getType() + ")");
-                    } else {
-                        System.out.println(name + " не смог вернуть " + file + 
-                                         " в очередь");
-                    }
-                    
-                    Thread.sleep(50);
+                    processBatch(batch);
                 }
+                processedCount.addAndGet(batch.size());
                 
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
@@ -61,17 +69,72 @@ public class FileProcessor implements Runnable {
     
     private void processFile(File file) throws InterruptedException {
         int processingTime = file.getProcessingTime();
+        totalQueueTime.addAndGet(System.currentTimeMillis() - file.getCreatedAt());
         
         System.out.println(name + " начал обработку " + file + 
-                         " (время: " + processingTime + " мс)");
+                         " (время: " + (batching.setupMillis + processingTime) + " мс)");
         
-        Thread.sleep(processingTime);
+        long serviceStart = System.currentTimeMillis();
+        try {
+            Thread.sleep(batching.setupMillis + processingTime);
+        } catch (InterruptedException e) {
+            // Файл не обработан: его заберет другой обработчик
+            requeue(List.of(file));
+            throw e;
+        }
+        long serviceTime = System.currentTimeMillis() - serviceStart;
+        totalServiceTime.addAndGet(serviceTime);
+        metrics.recordService(name, file, serviceTime);
+        metrics.recordBatch(List.of(file), serviceTime);
         
         long processingDuration = System.currentTimeMillis() - file.getCreatedAt();
+        systemTimes.record(processingDuration);
         System.out.println(name + " завершил " + file + 
                          " (общее время в системе: " + processingDuration + " мс)");
     }
     
+    // Подготовка оплачивается один раз на пакет; время пакета делится между
+    // файлами пропорционально их собственному времени обработки
+    private void processBatch(List<File> batch) throws InterruptedException {
+        long queueTimeNow = System.currentTimeMillis();
+        int processingTime = 0;
+        for (File file : batch) {
+            processingTime += file.getProcessingTime();
+            totalQueueTime.addAndGet(queueTimeNow - file.getCreatedAt());
+        }
+        
+        System.out.println(name + " начал обработку пакета из " + batch.size() + " файлов: " + batch + 
+                         " (время: " + (batching.setupMillis + processingTime) + " мс)");
+        
+        long serviceStart = System.currentTimeMillis();
+        try {
+            Thread.sleep(batching.setupMillis + processingTime);
+        } catch (InterruptedException e) {
+            requeue(batch);
+            throw e;
+        }
+        long finishedAt = System.currentTimeMillis();
+        long serviceTime = finishedAt - serviceStart;
+        totalServiceTime.addAndGet(serviceTime);
+        metrics.recordBatch(batch, serviceTime);
+        
+        for (File file : batch) {
+            metrics.recordService(name, file, serviceTime * file.getProcessingTime() / processingTime);
+            systemTimes.record(finishedAt - file.getCreatedAt());
+        }
+        System.out.println(name + " завершил пакет из " + batch.size() + " файлов (время в системе: " + 
+                         (finishedAt - batch.get(batch.size() - 1).getCreatedAt()) + ".." + 
+                         (finishedAt - batch.get(0).getCreatedAt()) + " мс)");
+    }
+    
+    private void requeue(List<File> files) {
+        for (File file : files) {
+            dispatcher.requeue(file);
+            metrics.recordRequeue(file);
+            System.out.println(name + " прервал обработку " + file + ", файл возвращен в очередь");
+        }
+    }
+    
     public void stop() {
         running.set(false);
     }
@@ -79,10 +142,51 @@ public class FileProcessor implements Runnable {
     public void printStatistics() {
         System.out.println("Статистика " + name + ":");
         System.out.println("   • Обработано файлов: " + processedCount.get());
-        System.out.println("   • Пропущено файлов: " + skippedCount.get());
+        System.out.println("   • Суммарное время файлов в очереди: " + totalQueueTime.get() + " мс");
     }
     
     public int getProcessedCount() {
         return processedCount.get();
     }
-}
\ No newline at end of file
+    
+    public long getTotalQueueTime() {
+        return totalQueueTime.get();
+    }
+    
+    public long getTotalServiceTime() {
+        return totalServiceTime.get();
+    }
+    
+    // Время от создания файла до конца обработки по каждому обработанному файлу
+    public LatencyHistogram getSystemTimes() {
+        return systemTimes;
+    }
+    
+    public File.FileType getSupportedType() {
+        return supportedType;
+    }
+    
+    // Сколько файлов обработчик берет за раз, сколько ждет добора пакета и
+    // сколько стоит подготовка к обработке, которая платится один раз на вызов
+    public static class Batching {
+        public static final Batching SINGLE = new Batching(1, 0, 0);
+        
+        final int maxFiles;
+        final long lingerMillis;
+        final long setupMillis;
+        
+        public Batching(int maxFiles, long lingerMillis, long setupMillis) {
+            if (maxFiles < 1 || lingerMillis < 0 || setupMillis < 0) {
+                throw new IllegalArgumentException("Некорректные параметры пакета: " + maxFiles + " файлов, "
+                        + lingerMillis + " мс ожидания, " + setupMillis + " мс подготовки");
+            }
+            this.maxFiles = maxFiles;
+            this.lingerMillis = lingerMillis;
+            this.setupMillis = setupMillis;
+        }
+        
+        public int getMaxFiles() {
+            return maxFiles;
+        }
+    }
+}
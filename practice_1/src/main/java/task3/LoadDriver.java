@@ -0,0 +1,380 @@
+package main.java.task3;
+
+
+import main.java.common.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Генератор нагрузки вместо FileGenerator: файлы поступают по расписанию
+// (открытая модель - генератор не ждет обработчиков), интенсивность растет
+// ступенями, и на каждой ступени замеряются ожидание в очереди и пропускная
+// способность. Перегиб - первая ступень, где p95 ожидания превысил в kneeFactor раз
+// лучший p95 прошлых ступеней (но не меньше среднего времени обработки: ожидание
+// за одним файлом - еще не перегиб) или где система перестала успевать за
+// поступлением и очередь растет
+public class LoadDriver implements Runnable {
+    // Если график отстал больше чем на секунду, пропущенные файлы не догоняются
+    private static final long MAX_LAG_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MIN_BASELINE_MILLIS = 10;
+    private static final double SATURATION = 0.9;
+    
+    public enum Sizes {
+        // Как у FileGenerator: 10..100 КБ
+        UNIFORM,
+        // Экспоненциальное распределение со средним 55 КБ
+        EXPONENTIAL,
+        // Парето с хвостом: минимум 10 КБ, alpha 1.5, среднее около 30 КБ
+        PARETO;
+        
+        private static final int MAX_SIZE = 1000;
+        
+        int next(Random random) {
+            double u = random.nextDouble();
+            double size;
+            if (this == UNIFORM) {
+                size = 10 + u * 91;
+            } else if (this == EXPONENTIAL) {
+                size = -55 * Math.log(1 - u);
+            } else {
+                size = 10 / Math.pow(1 - u, 1 / 1.5);
+            }
+            return (int) Math.max(1, Math.min(MAX_SIZE, size));
+        }
+    }
+    
+    private final FileDispatcher dispatcher;
+    private final FileMetrics metrics;
+    private final Arrivals arrivals;
+    private final Sizes sizes;
+    private final Ramp ramp;
+    private final Random random = new Random();
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final AtomicInteger generatedCount = new AtomicInteger(0);
+    private final AtomicInteger rejectedCount = new AtomicInteger(0);
+    private final List<Step> steps = new ArrayList<>();
+    
+    public LoadDriver(FileDispatcher dispatcher, FileMetrics metrics, Arrivals arrivals, Sizes sizes, Ramp ramp) {
+        this.dispatcher = dispatcher;
+        this.metrics = metrics;
+        this.arrivals = arrivals;
+        this.sizes = sizes;
+        this.ramp = ramp;
+    }
+    
+    @Override
+    public void run() {
+        System.out.println("Генератор нагрузки запущен: " + arrivals + ", размеры " + sizes);
+        
+        double rate = ramp.startRate;
+        long next = System.nanoTime();
+        Step knee = null;
+        try {
+            for (int index = 1; index <= ramp.maxSteps && running.get(); index++) {
+                LatencyHistogram wait = metrics.startWindow();
+                long processedBefore = metrics.getProcessedCount();
+                int generatedBefore = generatedCount.get();
+                long stepStart = System.nanoTime();
+                long stepEnd = stepStart + TimeUnit.MILLISECONDS.toNanos(ramp.stepMillis);
+                
+                while (running.get() && next < stepEnd) {
+                    long lag = System.nanoTime() - next;
+                    if (lag > MAX_LAG_NANOS) {
+                        next += lag;
+                    }
+                    TimeUnit.NANOSECONDS.sleep(next - System.nanoTime());
+                    offer(arrivals.next(random, rate, sizes));
+                    next += arrivals.nextDelayNanos(random, rate);
+                }
+                TimeUnit.NANOSECONDS.sleep(stepEnd - System.nanoTime());
+                
+                double seconds = (System.nanoTime() - stepStart) / 1e9;
+                Step step = new Step(index, rate, (generatedCount.get() - generatedBefore) / seconds,
+                        (metrics.getProcessedCount() - processedBefore) / seconds, wait, dispatcher.size());
+                steps.add(step);
+                System.out.println("Нагрузка, " + step);
+                
+                if (knee == null && isKnee(step)) {
+                    knee = step;
+                } else if (knee != null) {
+                    // Еще одна ступень после перегиба, чтобы было видно рост задержки
+                    break;
+                }
+                rate *= ramp.factor;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        System.out.println("Генератор нагрузки остановлен");
+        printReport(knee);
+    }
+    
+    private void offer(File file) throws InterruptedException {
+        if (dispatcher.offer(file, 0, TimeUnit.MILLISECONDS)) {
+            generatedCount.incrementAndGet();
+        } else {
+            rejectedCount.incrementAndGet();
+        }
+    }
+    
+    // У первой ступени нет прошлых p95 для сравнения, но насыщение видно и на ней:
+    // до начала нагрузки очередь пуста
+    private boolean isKnee(Step step) {
+        int previousBacklog = steps.size() < 2 ? 0 : steps.get(steps.size() - 2).backlog;
+        boolean saturated = step.completedRate < SATURATION * step.offeredRate && step.backlog > previousBacklog;
+        if (saturated || steps.size() < 2) {
+            return saturated;
+        }
+        
+        long best = Long.MAX_VALUE;
+        for (Step earlier : steps.subList(0, steps.size() - 1)) {
+            best = Math.min(best, earlier.waitP95);
+        }
+        double baseline = Math.max(Math.max(MIN_BASELINE_MILLIS, best), metrics.getMeanServiceMillis());
+        return step.waitP95 > ramp.kneeFactor * baseline;
+    }
+    
+    private void printReport(Step knee) {
+        System.out.println();
+        System.out.println("Нагрузка по ступеням (ожидание в очереди, мс):");
+        System.out.println("  шаг  цель/с  подано/с  обработано/с    p50    p95    p99  очередь");
+        for (Step step : steps) {
+            System.out.printf("  %3d %7.2f %9.2f %13.2f %6d %6d %6d %8d%n", step.index, step.targetRate,
+                    step.offeredRate, step.completedRate, step.waitP50, step.waitP95, step.waitP99, step.backlog);
+        }
+        double capacity = steps.stream().mapToDouble(step -> step.completedRate).max().orElse(0);
+        System.out.printf("Наибольшая пропускная способность: %.2f файлов/с%n", capacity);
+        if (knee == null) {
+            System.out.println("Перегиб не найден: система успевала на всех ступенях");
+        } else if (knee.index == 1) {
+            System.out.println("Перегиб на первой ступени: начальная нагрузка уже выше возможностей системы");
+        } else {
+            Step before = steps.get(knee.index - 2);
+            System.out.printf("Перегиб между %.2f и %.2f файлов/с: p95 ожидания %d -> %d мс%n",
+                    before.offeredRate, knee.offeredRate, before.waitP95, knee.waitP95);
+        }
+        if (rejectedCount.get() > 0) {
+            System.out.println("Отклонено файлов: " + rejectedCount.get());
+        }
+    }
+    
+    public void stop() {
+        running.set(false);
+    }
+    
+    public int getGeneratedCount() {
+        return generatedCount.get();
+    }
+    
+    // Ступени нагрузки: начальная интенсивность, множитель на каждой ступени,
+    // длительность ступени и предел их числа
+    public static class Ramp {
+        final double startRate;
+        final double factor;
+        final long stepMillis;
+        final int maxSteps;
+        final double kneeFactor;
+        
+        public Ramp(double startRate, double factor, long stepMillis, int maxSteps, double kneeFactor) {
+            if (startRate <= 0 || factor < 1 || stepMillis < 1 || maxSteps < 1 || kneeFactor <= 1) {
+                throw new IllegalArgumentException("Некорректные параметры роста нагрузки");
+            }
+            this.startRate = startRate;
+            this.factor = factor;
+            this.stepMillis = stepMillis;
+            this.maxSteps = maxSteps;
+            this.kneeFactor = kneeFactor;
+        }
+    }
+    
+    // Процесс поступления: паузы между файлами при заданной средней интенсивности
+    public abstract static class Arrivals {
+        public static Arrivals poisson() {
+            return new Poisson();
+        }
+        
+        public static Arrivals onOff(long onMillis, long offMillis) {
+            return new OnOff(onMillis, offMillis);
+        }
+        
+        // Строки файла: "пауза_мс размер_КБ [тип]", # - комментарий
+        public static Arrivals trace(Path file) throws IOException {
+            List<Trace.Entry> entries = new ArrayList<>();
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String text = line.strip();
+                if (text.isEmpty() || text.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = text.split("\\s+");
+                long delayMillis;
+                int sizeKb;
+                File.FileType type;
+                try {
+                    delayMillis = Long.parseLong(fields[0]);
+                    sizeKb = Integer.parseInt(fields[1]);
+                    type = fields.length > 2 ? File.FileType.valueOf(fields[2].toUpperCase()) : null;
+                } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                    throw new IllegalArgumentException("Некорректная строка трассы: " + line);
+                }
+                // Отрицательная пауза или пустой файл отклоняются сразу, а не в момент воспроизведения
+                if (delayMillis < 0 || sizeKb <= 0) {
+                    throw new IllegalArgumentException("Пауза должна быть >= 0, а размер > 0: " + line);
+                }
+                entries.add(new Trace.Entry(delayMillis, sizeKb, type));
+            }
+            if (entries.isEmpty()) {
+                throw new IllegalArgumentException("Трасса пуста: " + file);
+            }
+            return new Trace(file, entries);
+        }
+        
+        abstract long nextDelayNanos(Random random, double rate);
+        
+        File next(Random random, double rate, Sizes sizes) {
+            File.FileType[] types = File.FileType.values();
+            return new File(types[random.nextInt(types.length)], sizes.next(random));
+        }
+        
+        static long exponentialNanos(Random random, double rate) {
+            return (long) (-Math.log(1 - random.nextDouble()) / rate * 1e9);
+        }
+    }
+    
+    private static class Poisson extends Arrivals {
+        @Override
+        long nextDelayNanos(Random random, double rate) {
+            return exponentialNanos(random, rate);
+        }
+        
+        @Override
+        public String toString() {
+            return "пуассоновский поток";
+        }
+    }
+    
+    // Пачки: во время "включено" поток пуассоновский и плотнее в (on + off) / on
+    // раз, во время "выключено" файлов нет; средняя интенсивность та же
+    private static class OnOff extends Arrivals {
+        private final long onNanos;
+        private final long offNanos;
+        private long position;
+        
+        OnOff(long onMillis, long offMillis) {
+            if (onMillis < 1 || offMillis < 0) {
+                throw new IllegalArgumentException("Некорректные интервалы пачек: " + onMillis + "/" + offMillis);
+            }
+            this.onNanos = TimeUnit.MILLISECONDS.toNanos(onMillis);
+            this.offNanos = TimeUnit.MILLISECONDS.toNanos(offMillis);
+        }
+        
+        // position - место в цикле, всегда внутри включенной части
+        @Override
+        long nextDelayNanos(Random random, double rate) {
+            long remaining = exponentialNanos(random, rate * (onNanos + offNanos) / onNanos);
+            long delay = 0;
+            while (position + remaining >= onNanos) {
+                remaining -= onNanos - position;
+                delay += onNanos - position + offNanos;
+                position = 0;
+            }
+            position += remaining;
+            return delay + remaining;
+        }
+        
+        @Override
+        public String toString() {
+            return "пачки " + TimeUnit.NANOSECONDS.toMillis(onNanos) + "/"
+                    + TimeUnit.NANOSECONDS.toMillis(offNanos) + " мс";
+        }
+    }
+    
+    // Повтор записанной трассы по кругу; паузы сжимаются так, чтобы средняя
+    // интенсивность совпала с текущей ступенью
+    private static class Trace extends Arrivals {
+        private final Path file;
+        private final List<Entry> entries;
+        private final double baseRate;
+        private int position;
+        
+        Trace(Path file, List<Entry> entries) {
+            this.file = file;
+            this.entries = entries;
+            long total = entries.stream().mapToLong(entry -> entry.delayMillis).sum();
+            this.baseRate = entries.size() * 1000.0 / Math.max(1, total);
+        }
+        
+        // Пауза записи - это пауза перед ее файлом; пауза первой записи пропускается
+        @Override
+        long nextDelayNanos(Random random, double rate) {
+            position = (position + 1) % entries.size();
+            Entry entry = entries.get(position);
+            return (long) (TimeUnit.MILLISECONDS.toNanos(entry.delayMillis) * baseRate / rate);
+        }
+        
+        @Override
+        File next(Random random, double rate, Sizes sizes) {
+            Entry entry = entries.get(position);
+            File.FileType type = entry.type;
+            if (type == null) {
+                File.FileType[] types = File.FileType.values();
+                type = types[random.nextInt(types.length)];
+            }
+            return new File(type, entry.size);
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("трасса %s (%d записей, %.2f файлов/с)", file, entries.size(), baseRate);
+        }
+        
+        static class Entry {
+            final long delayMillis;
+            final int size;
+            final File.FileType type;
+            
+            Entry(long delayMillis, int size, File.FileType type) {
+                this.delayMillis = delayMillis;
+                this.size = size;
+                this.type = type;
+            }
+        }
+    }
+    
+    private static class Step {
+        final int index;
+        final double targetRate;
+        final double offeredRate;
+        final double completedRate;
+        final long waitP50;
+        final long waitP95;
+        final long waitP99;
+        final int backlog;
+        
+        Step(int index, double targetRate, double offeredRate, double completedRate, LatencyHistogram wait, int backlog) {
+            this.index = index;
+            this.targetRate = targetRate;
+            this.offeredRate = offeredRate;
+            this.completedRate = completedRate;
+            this.waitP50 = wait.getValueAtPercentile(50);
+            this.waitP95 = wait.getValueAtPercentile(95);
+            this.waitP99 = wait.getValueAtPercentile(99);
+            this.backlog = backlog;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("шаг %d: цель %.2f файлов/с, подано %.2f, обработано %.2f, "
+                    + "ожидание p50 %d / p95 %d / p99 %d мс, в очереди %d", index, targetRate, offeredRate,
+                    completedRate, waitP50, waitP95, waitP99, backlog);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package main.java.task3;
+
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Следит за очередью и временем обработки каждого типа и меняет число обработчиков
+// в пределах [minWorkers, maxWorkers]. Нужное число обработчиков - большее из двух:
+// сколько нужно, чтобы успевать за потоком файлов с запасом, и сколько нужно, чтобы
+// разобрать текущую очередь за целевое время ожидания. Добавляются обработчики
+// сразу, а снимаются по одному и только после нескольких спокойных проверок подряд
+public class ProcessorSupervisor implements Runnable {
+    private static final double TARGET_UTILIZATION = 0.8;
+    private static final double SMOOTHING = 0.3;
+    private static final int CALM_CHECKS_TO_RETIRE = 4;
+    // Средний файл генератора - 55 КБ по 7 мс
+    private static final double INITIAL_SERVICE_MILLIS = 55 * 7;
+    
+    private final FileDispatcher dispatcher;
+    private final FileMetrics metrics;
+    private final FileProcessor.Batching batching;
+    private final int minWorkers;
+    private final int maxWorkers;
+    private final long targetLatencyMillis;
+    private final long intervalMillis;
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final Map<File.FileType, TypeState> states = new EnumMap<>(File.FileType.class);
+    private final List<FileProcessor> allProcessors = new ArrayList<>();
+    private final List<Thread> allThreads = new ArrayList<>();
+    
+    public ProcessorSupervisor(FileDispatcher dispatcher, int minWorkers, int maxWorkers,
+                               long targetLatencyMillis, long intervalMillis) {
+        this(dispatcher, new FileMetrics(), FileProcessor.Batching.SINGLE, minWorkers, maxWorkers,
+             targetLatencyMillis, intervalMillis);
+    }
+    
+    public ProcessorSupervisor(FileDispatcher dispatcher, FileMetrics metrics, FileProcessor.Batching batching,
+                               int minWorkers, int maxWorkers, long targetLatencyMillis, long intervalMillis) {
+        if (minWorkers < 1 || maxWorkers < minWorkers) {
+            throw new IllegalArgumentException("Некорректные границы числа обработчиков: "
+                    + minWorkers + ".." + maxWorkers);
+        }
+        this.dispatcher = dispatcher;
+        this.metrics = metrics;
+        this.batching = batching;
+        this.minWorkers = minWorkers;
+        this.maxWorkers = maxWorkers;
+        this.targetLatencyMillis = targetLatencyMillis;
+        this.intervalMillis = intervalMillis;
+        
+        for (File.FileType type : File.FileType.values()) {
+            states.put(type, new TypeState());
+        }
+    }
+    
+    // Запускает минимальное число обработчиков для каждого типа
+    public synchronized void start() {
+        for (File.FileType type : File.FileType.values()) {
+            for (int i = 0; i < minWorkers; i++) {
+                addWorker(type);
+            }
+        }
+    }
+    
+    @Override
+    public void run() {
+        System.out.println("Супервизор запущен (обработчиков на тип: " + minWorkers + ".." + maxWorkers
+                + ", целевое ожидание: " + targetLatencyMillis + " мс)");
+        
+        long lastCheck = System.currentTimeMillis();
+        while (running.get() && !Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            
+            long now = System.currentTimeMillis();
+            check(now - lastCheck);
+            lastCheck = now;
+        }
+        
+        System.out.println("Супервизор остановлен");
+    }
+    
+    private synchronized void check(long elapsedMillis) {
+        if (!running.get()) {
+            return;
+        }
+        
+        for (File.FileType type : File.FileType.values()) {
+            TypeState state = states.get(type);
+            state.update(type, elapsedMillis);
+            
+            int current = state.workers.size();
+            int backlog = dispatcher.size(type);
+            double expectedWait = backlog * state.serviceMillis / current;
+            
+            int forRate = (int) Math.ceil(state.arrivalsPerMilli * state.serviceMillis / TARGET_UTILIZATION);
+            int forBacklog = (int) Math.ceil(backlog * state.serviceMillis / targetLatencyMillis);
+            int desired = Math.max(minWorkers, Math.min(maxWorkers, Math.max(forRate, forBacklog)));
+            
+            String reason = String.format("очередь %d, обслуживание %.0f мс, поступление %.2f файлов/с, "
+                    + "ожидание ~%.0f мс", backlog, state.serviceMillis, state.arrivalsPerMilli * 1000, expectedWait);
+            
+            if (desired > current) {
+                state.calmChecks = 0;
+                System.out.println("Супервизор: " + type + " " + current + " -> " + desired + " (" + reason + ")");
+                while (state.workers.size() < desired) {
+                    addWorker(type);
+                }
+            } else if (desired < current && backlog == 0) {
+                state.calmChecks++;
+                if (state.calmChecks >= CALM_CHECKS_TO_RETIRE) {
+                    state.calmChecks = 0;
+                    System.out.println("Супервизор: " + type + " " + current + " -> " + (current - 1)
+                            + " (" + reason + ")");
+                    retireWorker(type);
+                }
+            } else {
+                state.calmChecks = 0;
+            }
+        }
+    }
+    
+    private void addWorker(File.FileType type) {
+        TypeState state = states.get(type);
+        state.created++;
+        String processorName = "Processor-" + type + "-" + state.created;
+        
+        FileProcessor processor = new FileProcessor(processorName, type, dispatcher, metrics, batching);
+        Thread thread = new Thread(processor, processorName);
+        state.workers.add(processor);
+        allProcessors.add(processor);
+        allThreads.add(thread);
+        thread.start();
+    }
+    
+    // Обработчик доделывает текущий файл и завершается
+    private void retireWorker(File.FileType type) {
+        List<FileProcessor> workers = states.get(type).workers;
+        workers.remove(workers.size() - 1).stop();
+    }
+    
+    public void stop() {
+        running.set(false);
+    }
+    
+    public synchronized void stopWorkers() {
+        for (FileProcessor processor : allProcessors) {
+            processor.stop();
+        }
+        for (Thread thread : allThreads) {
+            thread.interrupt();
+        }
+    }
+    
+    public void joinWorkers(long millisPerWorker) throws InterruptedException {
+        for (Thread thread : getThreads()) {
+            thread.join(millisPerWorker);
+        }
+    }
+    
+    // Все обработчики, включая снятые: их статистика тоже входит в итог
+    public synchronized List<FileProcessor> getProcessors() {
+        return new ArrayList<>(allProcessors);
+    }
+    
+    private synchronized List<Thread> getThreads() {
+        return new ArrayList<>(allThreads);
+    }
+    
+    public synchronized int getWorkerCount(File.FileType type) {
+        return states.get(type).workers.size();
+    }
+    
+    // Скользящие оценки поступления и времени обработки; до первых данных
+    // время обработки берется по среднему размеру файла
+    private class TypeState {
+        private final List<FileProcessor> workers = new ArrayList<>();
+        private double serviceMillis = INITIAL_SERVICE_MILLIS;
+        private double arrivalsPerMilli;
+        private long lastAccepted;
+        private long lastProcessed;
+        private long lastServiceTime;
+        private int calmChecks;
+        private int created;
+        
+        void update(File.FileType type, long elapsedMillis) {
+            long accepted = dispatcher.getAcceptedCount(type);
+            long processed = 0;
+            long serviceTime = 0;
+            for (FileProcessor processor : allProcessors) {
+                if (processor.getSupportedType() == type) {
+                    processed += processor.getProcessedCount();
+                    serviceTime += processor.getTotalServiceTime();
+                }
+            }
+            
+            double arrivals = (double) (accepted - lastAccepted) / Math.max(1, elapsedMillis);
+            arrivalsPerMilli += SMOOTHING * (arrivals - arrivalsPerMilli);
+            if (processed > lastProcessed) {
+                double service = (double) (serviceTime - lastServiceTime) / (processed - lastProcessed);
+                serviceMillis += SMOOTHING * (service - serviceMillis);
+            }
+            
+            lastAccepted = accepted;
+            lastProcessed = processed;
+            lastServiceTime = serviceTime;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package main.java.task3;
+
+
+import java.util.Comparator;
+
+// Кратчайший файл первым с учетом ожидания: приоритет файла в момент t равен
+// processingTime - aging * (t - createdAt). Слагаемое aging * t одинаково для всех
+// файлов, поэтому порядок задает неизменный ключ processingTime + aging * createdAt,
+// и обычная очередь с приоритетом остается корректной. Большой файл обгоняет
+// новые маленькие, прождав не дольше (разница времени обработки) / aging
+public class SjfComparator implements Comparator<File> {
+    private final double aging;
+    
+    public SjfComparator(double aging) {
+        if (aging <= 0) {
+            throw new IllegalArgumentException("Коэффициент старения должен быть положительным: " + aging);
+        }
+        this.aging = aging;
+    }
+    
+    @Override
+    public int compare(File first, File second) {
+        int order = Double.compare(key(first), key(second));
+        return order != 0 ? order : Long.compare(first.getId(), second.getId());
+    }
+    
+    private double key(File file) {
+        return file.getProcessingTime() + aging * file.getCreatedAt();
+    }
+}
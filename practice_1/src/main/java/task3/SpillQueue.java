@@ -0,0 +1,124 @@
+package main.java.task3;
+
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// Очередь файлов на диске для переполнения: записи только дописываются в сегменты
+// фиксированного размера, отображенные в память, и читаются в том же порядке.
+// В куче держатся лишь ссылки на сегменты, так что всплеск любой длины не растит
+// память; прочитанный сегмент удаляется
+public class SpillQueue implements AutoCloseable {
+    // id, createdAt, enqueuedAt, размер, тип, число возвратов
+    private static final int RECORD_BYTES = 8 + 8 + 8 + 4 + 4 + 4;
+    private static final int RECORDS_PER_SEGMENT = 4096;
+    private static final int SEGMENT_BYTES = RECORD_BYTES * RECORDS_PER_SEGMENT;
+    
+    private final Path directory;
+    private final String prefix;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private long nextSegment;
+    private int size;
+    private long spilledCount;
+    
+    public SpillQueue(Path directory, String prefix) {
+        this.directory = directory;
+        this.prefix = prefix;
+    }
+    
+    public synchronized void add(File file) throws IOException {
+        Segment tail = segments.peekLast();
+        if (tail == null || tail.writeIndex == RECORDS_PER_SEGMENT) {
+            tail = new Segment(directory.resolve(prefix + "-" + nextSegment++ + ".seg"));
+            segments.addLast(tail);
+        }
+        
+        MappedByteBuffer buffer = tail.buffer;
+        int offset = tail.writeIndex * RECORD_BYTES;
+        buffer.putLong(offset, file.getId());
+        buffer.putLong(offset + 8, file.getCreatedAt());
+        buffer.putLong(offset + 16, file.getEnqueuedAt());
+        buffer.putInt(offset + 24, file.getSize());
+        buffer.putInt(offset + 28, file.getType().ordinal());
+        buffer.putInt(offset + 32, file.getRequeueCount());
+        tail.writeIndex++;
+        size++;
+        spilledCount++;
+    }
+    
+    public synchronized File poll() {
+        Segment head = segments.peekFirst();
+        if (head == null || head.readIndex == head.writeIndex) {
+            return null;
+        }
+        
+        MappedByteBuffer buffer = head.buffer;
+        int offset = head.readIndex * RECORD_BYTES;
+        File file = new File(buffer.getLong(offset), File.FileType.values()[buffer.getInt(offset + 28)],
+                buffer.getInt(offset + 24), buffer.getLong(offset + 8), buffer.getLong(offset + 16),
+                buffer.getInt(offset + 32));
+        head.readIndex++;
+        size--;
+        
+        if (head.readIndex == RECORDS_PER_SEGMENT) {
+            segments.removeFirst();
+            head.delete();
+        }
+        return file;
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+    
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+    
+    // Сколько файлов всего ушло на диск
+    public synchronized long getSpilledCount() {
+        return spilledCount;
+    }
+    
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+    
+    @Override
+    public synchronized void close() {
+        while (!segments.isEmpty()) {
+            segments.removeFirst().delete();
+        }
+        size = 0;
+    }
+    
+    // Канал можно закрыть сразу после отображения: отображение остается в силе
+    private static class Segment {
+        final Path path;
+        final MappedByteBuffer buffer;
+        int writeIndex;
+        int readIndex;
+        
+        Segment(Path path) throws IOException {
+            this.path = path;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+            }
+        }
+        
+        void delete() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                System.err.println("Не удалось удалить сегмент " + path + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package main.java.task3;
+
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Кольцевой буфер для одного производителя и нескольких потребителей без блокировок.
+// Массив выделяется один раз, узлы на элемент не создаются. Индексы производителя
+// и потребителей лежат в разных кэш-линиях, чтобы не мешать друг другу.
+// Добавлять элементы можно только из одного потока
+public class SpmcRingBuffer<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    
+    public enum WaitStrategy {
+        // Постоянно опрашивает буфер: минимальная задержка, но занимает ядро
+        BUSY_SPIN,
+        // Отдает процессор другим потокам между попытками
+        YIELD,
+        // Несколько попыток вхолостую, затем засыпает с растущей паузой до 1 мс
+        PARK
+    }
+    
+    // 128 байт между индексами: кэш-линия и соседняя, которую процессор подгружает парой
+    private static final int PADDING = 16;
+    private static final int PRODUCER = PADDING;
+    private static final int CONSUMER = PADDING * 2;
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long MAX_PARK_NANOS = 1_000_000;
+    
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLongArray indexes = new AtomicLongArray(PADDING * 3);
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    
+    public SpmcRingBuffer(int capacity, WaitStrategy waitStrategy) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Недопустимая емкость буфера: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+    
+    // Производитель пишет элемент, затем публикует новый индекс; потребитель,
+    // увидевший индекс, видит и элемент. Ячейка занимается только после того, как
+    // потребитель ее очистил, - до этого буфер считается полным
+    @Override
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        
+        long tail = indexes.get(PRODUCER);
+        int index = (int) (tail & mask);
+        if (tail - indexes.get(CONSUMER) > mask || buffer.get(index) != null) {
+            return false;
+        }
+        buffer.lazySet(index, element);
+        indexes.lazySet(PRODUCER, tail + 1);
+        return true;
+    }
+    
+    // Элемент читается до захвата позиции: производитель не перезапишет ячейку,
+    // пока ее не очистит захвативший потребитель. Очистка нужна, чтобы буфер не
+    // держал ссылки на уже отданные элементы
+    @Override
+    public E poll() {
+        while (true) {
+            long head = indexes.get(CONSUMER);
+            if (head >= indexes.get(PRODUCER)) {
+                return null;
+            }
+            int index = (int) (head & mask);
+            E element = buffer.get(index);
+            if (element != null && indexes.compareAndSet(CONSUMER, head, head + 1)) {
+                buffer.lazySet(index, null);
+                return element;
+            }
+        }
+    }
+    
+    // Пустая ячейка при непустом буфере значит, что элемент только что забрали
+    @Override
+    public E peek() {
+        while (true) {
+            long head = indexes.get(CONSUMER);
+            if (head >= indexes.get(PRODUCER)) {
+                return null;
+            }
+            E element = buffer.get((int) (head & mask));
+            if (element != null) {
+                return element;
+            }
+        }
+    }
+    
+    @Override
+    public boolean offer(E element, long timeout, TimeUnit unit) throws InterruptedException {
+        if (offer(element)) {
+            return true;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int attempt = 0; !offer(element); attempt++) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            idle(attempt);
+        }
+        return true;
+    }
+    
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E element = poll();
+        if (element != null) {
+            return element;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int attempt = 0; (element = poll()) == null; attempt++) {
+            if (System.nanoTime() - deadline >= 0) {
+                return null;
+            }
+            idle(attempt);
+        }
+        return element;
+    }
+    
+    @Override
+    public void put(E element) throws InterruptedException {
+        for (int attempt = 0; !offer(element); attempt++) {
+            idle(attempt);
+        }
+    }
+    
+    @Override
+    public E take() throws InterruptedException {
+        E element;
+        for (int attempt = 0; (element = poll()) == null; attempt++) {
+            idle(attempt);
+        }
+        return element;
+    }
+    
+    private void idle(int attempt) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        
+        if (waitStrategy == WaitStrategy.BUSY_SPIN) {
+            Thread.onSpinWait();
+        } else if (waitStrategy == WaitStrategy.YIELD || attempt < SPIN_TRIES + YIELD_TRIES) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        } else {
+            int shift = Math.min(attempt - SPIN_TRIES - YIELD_TRIES, 20);
+            LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1000L << shift));
+        }
+    }
+    
+    @Override
+    public int size() {
+        long head = indexes.get(CONSUMER);
+        long tail = indexes.get(PRODUCER);
+        return (int) Math.max(0, tail - head);
+    }
+    
+    @Override
+    public int remainingCapacity() {
+        return buffer.length() - size();
+    }
+    
+    @Override
+    public int drainTo(Collection<? super E> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        if (collection == this) {
+            throw new IllegalArgumentException();
+        }
+        
+        int drained = 0;
+        E element;
+        while (drained < maxElements && (element = poll()) != null) {
+            collection.add(element);
+            drained++;
+        }
+        return drained;
+    }
+    
+    // Снимок текущего содержимого; элементы, которые успели забрать во время
+    // обхода, в нем могут остаться или пропасть
+    @Override
+    public Iterator<E> iterator() {
+        long head = indexes.get(CONSUMER);
+        long tail = indexes.get(PRODUCER);
+        List<E> snapshot = new ArrayList<>();
+        for (long i = head; i < tail; i++) {
+            E element = buffer.get((int) (i & mask));
+            if (element != null) {
+                snapshot.add(element);
+            }
+        }
+        return snapshot.iterator();
+    }
+}
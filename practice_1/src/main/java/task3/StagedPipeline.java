@@ -0,0 +1,283 @@
+package main.java.task3;
+
+
+import main.java.common.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Обработка файла как цепочка стадий (SEDA): у каждой стадии своя ограниченная
+// очередь и свой пул потоков, а доля стадии во времени обработки файла задается
+// при настройке. Поток, закончивший свою часть, кладет файл в очередь следующей
+// стадии и ждет, если она полна, - так медленная стадия притормаживает все
+// предыдущие вплоть до диспетчера. Узкое место - стадия с наибольшей загрузкой
+public class StagedPipeline {
+    private static final long SAMPLE_PERIOD_MILLIS = 100;
+    
+    private final FileDispatcher dispatcher;
+    private final FileMetrics metrics;
+    private final List<Stage> stages;
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong totalQueueTime = new AtomicLong();
+    private final LongAdder ingressBlockedMillis = new LongAdder();
+    private final LatencyHistogram systemTimes = new LatencyHistogram();
+    private long startedAt;
+    
+    public StagedPipeline(FileDispatcher dispatcher, FileMetrics metrics, List<Stage> stages) {
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("Конвейер без стадий");
+        }
+        this.dispatcher = dispatcher;
+        this.metrics = metrics;
+        this.stages = stages;
+    }
+    
+    // Формат: имя:потоки:доля,имя:потоки:доля,... Доли - части времени
+    // обработки файла, в сумме обычно 1
+    public static List<Stage> parse(String description, int queueCapacity) {
+        List<Stage> stages = new ArrayList<>();
+        for (String part : description.split(",")) {
+            String[] fields = part.trim().split(":");
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("Некорректное описание стадии: " + part);
+            }
+            stages.add(new Stage(fields[0], Integer.parseInt(fields[1]), Double.parseDouble(fields[2]),
+                    queueCapacity));
+        }
+        return stages;
+    }
+    
+    // По потоку на тип переносит файлы из диспетчера в первую стадию,
+    // затем запускает пулы стадий
+    public synchronized void start() {
+        startedAt = System.currentTimeMillis();
+        for (File.FileType type : File.FileType.values()) {
+            startThread("Ingress-" + type, () -> ingress(type));
+        }
+        for (int index = 0; index < stages.size(); index++) {
+            Stage stage = stages.get(index);
+            Stage next = index + 1 < stages.size() ? stages.get(index + 1) : null;
+            for (int i = 1; i <= stage.threads; i++) {
+                startThread("Stage-" + stage.name + "-" + i, () -> work(stage, next));
+            }
+        }
+        startThread("StageSampler", this::sample);
+    }
+    
+    private void startThread(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        threads.add(thread);
+        thread.start();
+    }
+    
+    private void ingress(File.FileType type) {
+        Stage first = stages.get(0);
+        try {
+            while (running.get()) {
+                File file = dispatcher.poll(type, 500, TimeUnit.MILLISECONDS);
+                if (file == null) {
+                    continue;
+                }
+                metrics.recordDequeue(file);
+                totalQueueTime.addAndGet(System.currentTimeMillis() - file.getCreatedAt());
+                try {
+                    ingressBlockedMillis.add(first.put(new Job(file)));
+                } catch (InterruptedException e) {
+                    requeue(file);
+                    throw e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void work(Stage stage, Stage next) {
+        try {
+            while (running.get()) {
+                Job job = stage.queue.poll(500, TimeUnit.MILLISECONDS);
+                if (job == null) {
+                    continue;
+                }
+                stage.wait.record(System.currentTimeMillis() - job.enqueuedAt);
+                
+                try {
+                    long serviceStart = System.currentTimeMillis();
+                    Thread.sleep(Math.round(job.file.getProcessingTime() * stage.share));
+                    long serviceTime = System.currentTimeMillis() - serviceStart;
+                    stage.busyMillis.add(serviceTime);
+                    stage.service.record(serviceTime);
+                    stage.processed.increment();
+                    job.serviceMillis += serviceTime;
+                    
+                    if (next != null) {
+                        stage.blockedMillis.add(next.put(job));
+                    } else {
+                        complete(job);
+                    }
+                } catch (InterruptedException e) {
+                    // Файл уже взят из очереди стадии: без возврата он бы потерялся
+                    requeue(job.file);
+                    throw e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void complete(Job job) {
+        long systemTime = System.currentTimeMillis() - job.file.getCreatedAt();
+        systemTimes.record(systemTime);
+        completed.incrementAndGet();
+        metrics.recordService(Thread.currentThread().getName(), job.file, job.serviceMillis);
+        System.out.println("Конвейер завершил " + job.file + " (общее время в системе: " + systemTime + " мс)");
+    }
+    
+    // Прерванный файл проходит конвейер заново с первой стадии
+    private void requeue(File file) {
+        dispatcher.requeue(file);
+        metrics.recordRequeue(file);
+        System.out.println(Thread.currentThread().getName() + " прервал обработку " + file
+                + ", файл возвращен в очередь");
+    }
+    
+    private void sample() {
+        while (running.get()) {
+            for (Stage stage : stages) {
+                stage.occupancy.record(stage.queue.size());
+            }
+            try {
+                Thread.sleep(SAMPLE_PERIOD_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    // Файлы в работе и в ожидании места в очереди возвращаются в диспетчер,
+    // а файлы в очередях стадий остаются там и считаются незавершенными
+    public synchronized void stop() {
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+    }
+    
+    public void join(long millisPerThread) throws InterruptedException {
+        List<Thread> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(threads);
+        }
+        for (Thread thread : snapshot) {
+            thread.join(millisPerThread);
+        }
+    }
+    
+    public int getInFlightCount() {
+        int count = 0;
+        for (Stage stage : stages) {
+            count += stage.queue.size();
+        }
+        return count;
+    }
+    
+    public long getCompletedCount() {
+        return completed.get();
+    }
+    
+    public long getTotalQueueTime() {
+        return totalQueueTime.get();
+    }
+    
+    public LatencyHistogram getSystemTimes() {
+        return systemTimes;
+    }
+    
+    // Загрузка - доля времени, которую потоки стадии заняты работой;
+    // ожидание - сколько потоки простояли, отдавая файл в полную следующую очередь
+    public void print() {
+        long elapsed = Math.max(1, System.currentTimeMillis() - startedAt);
+        Stage bottleneck = stages.get(0);
+        
+        System.out.println("Стадии конвейера (мс: p50 / p95 / max):");
+        for (Stage stage : stages) {
+            double utilization = stage.utilization(elapsed);
+            if (utilization > bottleneck.utilization(elapsed)) {
+                bottleneck = stage;
+            }
+            System.out.printf("  %s: потоков %d, обработано %d, загрузка %.0f%%, ожидание отдачи %.0f%%%n",
+                    stage.name, stage.threads, stage.processed.sum(), utilization * 100,
+                    stage.blockedMillis.sum() * 100.0 / ((double) stage.threads * elapsed));
+            System.out.println("     обработка: " + stage.service.getValueAtPercentile(50) + " / "
+                    + stage.service.getValueAtPercentile(95) + " / " + stage.service.getMax());
+            System.out.println("     в очереди: " + stage.wait.getValueAtPercentile(50) + " / "
+                    + stage.wait.getValueAtPercentile(95) + " / " + stage.wait.getMax()
+                    + ", файлов в очереди: p50 " + stage.occupancy.getValueAtPercentile(50)
+                    + ", макс. " + stage.occupancy.getMax() + " из " + stage.capacity);
+        }
+        System.out.printf("Перенос из диспетчера ждал первую стадию: %d мс%n", ingressBlockedMillis.sum());
+        System.out.printf("Узкое место: %s (загрузка %.0f%%)%n", bottleneck.name,
+                bottleneck.utilization(elapsed) * 100);
+    }
+    
+    public static class Stage {
+        private final String name;
+        private final int threads;
+        private final double share;
+        private final int capacity;
+        private final BlockingQueue<Job> queue;
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder busyMillis = new LongAdder();
+        private final LongAdder blockedMillis = new LongAdder();
+        private final LatencyHistogram wait = new LatencyHistogram();
+        private final LatencyHistogram service = new LatencyHistogram();
+        private final LatencyHistogram occupancy = new LatencyHistogram();
+        
+        public Stage(String name, int threads, double share, int capacity) {
+            if (threads < 1 || share < 0 || capacity < 1) {
+                throw new IllegalArgumentException("Некорректные параметры стадии " + name + ": потоков "
+                        + threads + ", доля " + share + ", очередь " + capacity);
+            }
+            this.name = name;
+            this.threads = threads;
+            this.share = share;
+            this.capacity = capacity;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+        
+        // Возвращает, сколько пришлось ждать места в очереди. Время в очереди
+        // отсчитывается от попытки положить файл, то есть включает это ожидание
+        private long put(Job job) throws InterruptedException {
+            job.enqueuedAt = System.currentTimeMillis();
+            if (queue.offer(job)) {
+                return 0;
+            }
+            queue.put(job);
+            return System.currentTimeMillis() - job.enqueuedAt;
+        }
+        
+        private double utilization(long elapsedMillis) {
+            return busyMillis.sum() / ((double) threads * elapsedMillis);
+        }
+    }
+    
+    private static class Job {
+        final File file;
+        long enqueuedAt;
+        long serviceMillis;
+        
+        Job(File file) {
+            this.file = file;
+        }
+    }
+}
@@ -2,63 +2,138 @@ package main.java.task3;
 
 // src/main/java/task3/Task3Main.java
 
-import java.util.ArrayList;
+import main.java.common.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.function.Supplier;
 
 public class Task3Main {
     private static final int QUEUE_CAPACITY = 5;
     private static final int SIMULATION_TIME_SECONDS = 20;
+    // LINKED (по умолчанию) или стратегия ожидания кольцевого буфера: BUSY_SPIN, YIELD, PARK
+    private static final String QUEUE_KIND = System.getProperty("task3.queue", "LINKED");
+    // FIFO или SJF: кратчайший файл первым со старением, коэффициент task3.aging.
+    // SJF упорядочивает только файлы в памяти; файлы на диске идут после них по порядку
+    private static final String SCHEDULING = System.getProperty("task3.scheduling", "FIFO");
+    private static final double AGING = Double.parseDouble(System.getProperty("task3.aging", "1.0"));
+    private static final int MIN_WORKERS = Integer.getInteger("task3.minWorkers", 1);
+    private static final int MAX_WORKERS = Integer.getInteger("task3.maxWorkers", 4);
+    private static final long TARGET_LATENCY_MILLIS = Long.getLong("task3.targetLatencyMs", 1000);
+    private static final long SUPERVISOR_INTERVAL_MILLIS = Long.getLong("task3.supervisorIntervalMs", 500);
+    // Файл для периодической выгрузки метрик: *.json - JSON по строке на срез, иначе CSV
+    private static final String METRICS_FILE = System.getProperty("task3.metricsFile");
+    private static final long METRICS_PERIOD_MILLIS = Long.getLong("task3.metricsPeriodMs", 1000);
+    // Файлы сверх лимита очереди уходят на диск вместо отклонения; каталог по умолчанию временный
+    private static final boolean SPILL = Boolean.parseBoolean(System.getProperty("task3.spill", "true"));
+    private static final String SPILL_DIR = System.getProperty("task3.spillDir");
+    // Пакетная обработка: до task3.batchSize файлов за раз, добор пакета до task3.lingerMs,
+    // подготовка task3.setupMs платится один раз на пакет
+    private static final int BATCH_SIZE = Integer.getInteger("task3.batchSize", 1);
+    private static final long LINGER_MILLIS = Long.getLong("task3.lingerMs", 0);
+    private static final long SETUP_MILLIS = Long.getLong("task3.setupMs", 0);
+    // Конвейер стадий вместо обработчиков по типам: имя:потоки:доля времени обработки
+    private static final String STAGES = System.getProperty("task3.stages");
+    private static final int STAGE_QUEUE_CAPACITY = Integer.getInteger("task3.stageQueue", 10);
+    // Генератор нагрузки со ступенчатым ростом вместо FileGenerator и фиксированных 20 секунд:
+    // POISSON, ON_OFF (пачки task3.onMs/task3.offMs) или TRACE (файл task3.trace)
+    private static final String ARRIVALS = System.getProperty("task3.arrivals");
+    private static final String SIZES = System.getProperty("task3.sizes", "UNIFORM");
+    private static final long ON_MILLIS = Long.getLong("task3.onMs", 1000);
+    private static final long OFF_MILLIS = Long.getLong("task3.offMs", 1000);
+    private static final String TRACE = System.getProperty("task3.trace");
+    // Дробные параметры разбираются в loadDriver, чтобы ошибка в них не роняла инициализацию класса
+    private static final String RAMP_START = System.getProperty("task3.rampStart", "1");
+    private static final String RAMP_FACTOR = System.getProperty("task3.rampFactor", "1.25");
+    private static final long RAMP_STEP_MILLIS = Long.getLong("task3.rampStepMs", 10000);
+    private static final int RAMP_MAX_STEPS = Integer.getInteger("task3.rampMaxSteps", 20);
+    private static final String KNEE_FACTOR = System.getProperty("task3.kneeFactor", "3");
     
     public static void main(String[] args) {
         System.out.println("Система обработки файлов");
         System.out.println();
         System.out.println("Параметры системы:");
         System.out.println("  • Размер очереди: " + QUEUE_CAPACITY);
-        System.out.println("  • Время симуляции: " + SIMULATION_TIME_SECONDS + " секунд");
+        System.out.println("  • Очереди по типам: " + ("SJF".equalsIgnoreCase(SCHEDULING) 
+                                                       ? "SJF, старение " + AGING : QUEUE_KIND));
+        System.out.println("  • При переполнении очереди: " + (SPILL ? "запись на диск" : "отклонение"));
+        if (STAGES == null) {
+            System.out.println("  • Обработчиков на тип: " + MIN_WORKERS + ".." + MAX_WORKERS + 
+                             ", целевое ожидание: " + TARGET_LATENCY_MILLIS + " мс");
+        } else {
+            System.out.println("  • Стадии конвейера: " + STAGES + ", очередь стадии: " + STAGE_QUEUE_CAPACITY);
+        }
+        if (ARRIVALS == null) {
+            System.out.println("  • Время симуляции: " + SIMULATION_TIME_SECONDS + " секунд");
+        } else {
+            System.out.println("  • Нагрузка: " + ARRIVALS + ", размеры " + SIZES + ", от " + RAMP_START + 
+                             " файлов/с ×" + RAMP_FACTOR + " каждые " + RAMP_STEP_MILLIS + " мс");
+        }
         System.out.println("  • Типы файлов: XML, JSON, XLS");
-        System.out.println("  • Время обработки: размер × 7 мс");
+        System.out.println("  • Время обработки: размер × 7 мс" + 
+                         (SETUP_MILLIS > 0 ? " + подготовка " + SETUP_MILLIS + " мс на вызов" : ""));
+        if (BATCH_SIZE > 1) {
+            System.out.println("  • Пакеты: до " + BATCH_SIZE + " файлов, добор до " + LINGER_MILLIS + " мс");
+        }
         System.out.println();
         System.out.println("════════════════════════════════════════════");
         System.out.println();
         
-        BlockingQueue<File> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+        Path spillDirectory;
+        try {
+            spillDirectory = spillDirectory();
+        } catch (IOException e) {
+            System.err.println("Не удалось создать каталог для переполнения: " + e.getMessage());
+            return;
+        }
+        FileDispatcher dispatcher = new FileDispatcher(QUEUE_CAPACITY, queueFactory(), spillDirectory);
+        FileMetrics metrics = new FileMetrics();
         
-        FileGenerator generator = new FileGenerator(queue);
-        Thread generatorThread = new Thread(generator, "FileGenerator");
+        FileGenerator generator = new FileGenerator(dispatcher);
+        LoadDriver driver;
+        try {
+            driver = loadDriver(dispatcher, metrics);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Некорректные параметры нагрузки: " + e.getMessage());
+            dispatcher.close();
+            return;
+        }
+        Thread generatorThread = driver == null ? new Thread(generator, "FileGenerator")
+                                                : new Thread(driver, "LoadDriver");
         
-        List<FileProcessor> processors = new ArrayList<>();
-        List<Thread> processorThreads = new ArrayList<>();
+        FileProcessor.Batching batching = new FileProcessor.Batching(BATCH_SIZE, LINGER_MILLIS, SETUP_MILLIS);
+        ProcessorSupervisor supervisor = new ProcessorSupervisor(dispatcher, metrics, batching, 
+                                                                 MIN_WORKERS, MAX_WORKERS, 
+                                                                 TARGET_LATENCY_MILLIS, SUPERVISOR_INTERVAL_MILLIS);
+        Thread supervisorThread = new Thread(supervisor, "ProcessorSupervisor");
+        StagedPipeline pipeline = STAGES == null ? null 
+                : new StagedPipeline(dispatcher, metrics, StagedPipeline.parse(STAGES, STAGE_QUEUE_CAPACITY));
         
-        for (File.FileType type : File.FileType.values()) {
-            for (int i = 1; i <= 2; i++) {
-                String processorName = "Processor-" + type + "-" + i;
-                FileProcessor processor = new FileProcessor(processorName, type, queue);
-                processors.add(processor);
-                
-                Thread thread = new Thread(processor, processorName);
-                processorThreads.add(thread);
-            }
+        long startTime = System.currentTimeMillis();
+        metrics.start(dispatcher, METRICS_FILE == null ? null : Path.of(METRICS_FILE), METRICS_PERIOD_MILLIS);
+        if (pipeline == null) {
+            supervisor.start();
+            supervisorThread.start();
+        } else {
+            pipeline.start();
         }
-        
         generatorThread.start();
-        for (Thread thread : processorThreads) {
-            thread.start();
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
         
         System.out.println();
         System.out.println("════════════════════════════════════════════");
         System.out.println();
         
         try {
-            Thread.sleep(SIMULATION_TIME_SECONDS * 1000);
+            if (driver == null) {
+                Thread.sleep(SIMULATION_TIME_SECONDS * 1000);
+            } else {
+                generatorThread.join();
+            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
@@ -69,6 +144,9 @@ public class Task3Main {
         System.out.println();
         
         generator.stop();
+        if (driver != null) {
+            driver.stop();
+        }
         generatorThread.interrupt();
         
         try {
@@ -84,36 +162,73 @@ public class Task3Main {
             Thread.currentThread().interrupt();
         }
         
-        for (FileProcessor processor : processors) {
-            processor.stop();
-        }
-        
-        for (Thread thread : processorThreads) {
-            thread.interrupt();
+        supervisor.stop();
+        supervisorThread.interrupt();
+        supervisor.stopWorkers();
+        if (pipeline != null) {
+            pipeline.stop();
         }
         
         try {
-            for (Thread thread : processorThreads) {
-                thread.join(2000);
+            supervisorThread.join(2000);
+            supervisor.joinWorkers(2000);
+            if (pipeline != null) {
+                pipeline.join(2000);
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
+        metrics.stop();
+        
+        List<FileProcessor> processors = supervisor.getProcessors();
+        
+        long elapsedTime = System.currentTimeMillis() - startTime;
         
         // Итоговая статистика
         System.out.println();
         System.out.println("════════════════════════════════════════════");
         System.out.println("Итог:");
         
-        int totalGenerated = generator.getGeneratedCount();
+        int totalGenerated = driver == null ? generator.getGeneratedCount() : driver.getGeneratedCount();
         int totalProcessed = processors.stream()
             .mapToInt(FileProcessor::getProcessedCount)
             .sum();
-        int filesInQueue = queue.size();
+        long totalQueueTime = processors.stream()
+            .mapToLong(FileProcessor::getTotalQueueTime)
+            .sum();
+        LatencyHistogram systemTimes = new LatencyHistogram();
+        for (FileProcessor processor : processors) {
+            systemTimes.add(processor.getSystemTimes());
+        }
+        int filesInQueue = dispatcher.size();
+        if (pipeline != null) {
+            totalProcessed = (int) pipeline.getCompletedCount();
+            totalQueueTime = pipeline.getTotalQueueTime();
+            systemTimes = pipeline.getSystemTimes();
+            filesInQueue += pipeline.getInFlightCount();
+        }
         
         System.out.println("Файлов сгенерировано: " + totalGenerated);
         System.out.println("Файлов обработано: " + totalProcessed);
         System.out.println("Файлов осталось в очереди: " + filesInQueue);
+        if (SPILL) {
+            System.out.println("Файлов записано на диск при переполнении: " + dispatcher.getSpilledCount());
+        }
+        System.out.printf("Пропускная способность: %.2f файлов/с\n", totalProcessed * 1000.0 / elapsedTime);
+        if (totalProcessed > 0) {
+            System.out.printf("Среднее время в очереди: %.1f мс\n", (double) totalQueueTime / totalProcessed);
+        }
+        if (systemTimes.getCount() > 0) {
+            System.out.printf("Время в системе: среднее %.1f мс, p50 %d, p95 %d, p99 %d, макс. %d мс\n",
+                              systemTimes.getMean(),
+                              systemTimes.getValueAtPercentile(50), systemTimes.getValueAtPercentile(95),
+                              systemTimes.getValueAtPercentile(99), systemTimes.getMax());
+        }
+        System.out.println();
+        metrics.print();
+        if (pipeline != null) {
+            pipeline.print();
+        }
         System.out.println();
         
         if (totalGenerated > 0) {
@@ -121,7 +236,57 @@ public class Task3Main {
             System.out.printf("Эффективность системы: %.1f%%\n", efficiency);
         }
         
+        dispatcher.close();
+        if (spillDirectory != null && SPILL_DIR == null) {
+            try {
+                Files.deleteIfExists(spillDirectory);
+            } catch (IOException e) {
+                System.err.println("Не удалось удалить каталог " + spillDirectory + ": " + e.getMessage());
+            }
+        }
+        
         System.out.println();
         System.out.println("Система остановлена");
     }
+    
+    private static LoadDriver loadDriver(FileDispatcher dispatcher, FileMetrics metrics) throws IOException {
+        if (ARRIVALS == null) {
+            return null;
+        }
+        LoadDriver.Arrivals arrivals;
+        if ("POISSON".equalsIgnoreCase(ARRIVALS)) {
+            arrivals = LoadDriver.Arrivals.poisson();
+        } else if ("ON_OFF".equalsIgnoreCase(ARRIVALS)) {
+            arrivals = LoadDriver.Arrivals.onOff(ON_MILLIS, OFF_MILLIS);
+        } else if ("TRACE".equalsIgnoreCase(ARRIVALS) && TRACE != null) {
+            arrivals = LoadDriver.Arrivals.trace(Path.of(TRACE));
+        } else {
+            throw new IllegalArgumentException("неизвестный поток " + ARRIVALS + " (для TRACE нужен task3.trace)");
+        }
+        LoadDriver.Ramp ramp = new LoadDriver.Ramp(Double.parseDouble(RAMP_START), Double.parseDouble(RAMP_FACTOR),
+                                                   RAMP_STEP_MILLIS, RAMP_MAX_STEPS, Double.parseDouble(KNEE_FACTOR));
+        return new LoadDriver(dispatcher, metrics, arrivals, LoadDriver.Sizes.valueOf(SIZES.toUpperCase()), ramp);
+    }
+    
+    private static Path spillDirectory() throws IOException {
+        if (!SPILL) {
+            return null;
+        }
+        if (SPILL_DIR == null) {
+            return Files.createTempDirectory("task3-spill");
+        }
+        return Files.createDirectories(Path.of(SPILL_DIR));
+    }
+    
+    private static Supplier<BlockingQueue<File>> queueFactory() {
+        if ("SJF".equalsIgnoreCase(SCHEDULING)) {
+            SjfComparator comparator = new SjfComparator(AGING);
+            return () -> new PriorityBlockingQueue<>(QUEUE_CAPACITY, comparator);
+        }
+        if ("LINKED".equalsIgnoreCase(QUEUE_KIND)) {
+            return () -> new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+        }
+        SpmcRingBuffer.WaitStrategy strategy = SpmcRingBuffer.WaitStrategy.valueOf(QUEUE_KIND.toUpperCase());
+        return () -> new SpmcRingBuffer<>(QUEUE_CAPACITY, strategy);
+    }
 }